@@ -1,14 +1,45 @@
 package app.todo.base.domain;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PrePersist;
 import org.jspecify.annotations.Nullable;
 import org.springframework.data.util.ProxyUtils;
 
+import java.util.UUID;
+
 @MappedSuperclass
 public abstract class AbstractEntity<ID> {
 
+    // Identity of the entity from the moment it is first needed, long before the database assigns the id. Not set in a
+    // field initializer: Hibernate creates every entity it loads through the constructor, and would generate a random
+    // UUID for each row only to replace it with the stored value.
+    @Column(name = "uuid", updatable = false, unique = true)
+    private @Nullable UUID uuid;
+
     public abstract @Nullable ID getId();
 
+    /**
+     * Returns the uuid, generating it first for a new entity that does not have one yet.
+     * <p>
+     * {@link #equals(Object)} and {@link #hashCode()} read it through this getter, since on a lazy proxy the field is
+     * never set. Comparing or hashing an uninitialized proxy therefore initializes it: one more SELECT inside a
+     * session, or a {@code LazyInitializationException} outside one.
+     * </p>
+     */
+    public UUID getUuid() {
+        if (uuid == null) {
+            uuid = UUID.randomUUID();
+        }
+        return uuid;
+    }
+
+    // Entities stored without their uuid having been read still get one
+    @PrePersist
+    void assignUuid() {
+        getUuid();
+    }
+
     @Override
     public String toString() {
         return "%s{id=%s}".formatted(getClass().getSimpleName(), getId());
@@ -17,10 +48,9 @@ public abstract class AbstractEntity<ID> {
     @Override
     public int hashCode() {
         // Hashcode should never change during the lifetime of an object. Because of
-        // this we can't use getId() to calculate the hashcode. Unless you have sets
-        // with lots of entities in them, returning the same hashcode should not be a
-        // problem.
-        return ProxyUtils.getUserClass(getClass()).hashCode();
+        // this we can't use getId() to calculate the hashcode, which is only set once
+        // the entity is persisted. The uuid is generated on first use and then kept.
+        return getUuid().hashCode();
     }
 
     @Override
@@ -37,8 +67,7 @@ public abstract class AbstractEntity<ID> {
             return false;
         }
 
-        var id = getId();
-        return id != null && id.equals(((AbstractEntity<?>) obj).getId());
+        return getUuid().equals(((AbstractEntity<?>) obj).getUuid());
     }
 
 }
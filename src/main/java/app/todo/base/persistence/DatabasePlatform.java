@@ -0,0 +1,25 @@
+package app.todo.base.persistence;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells which database the application is running on, for the few features that use database-specific SQL and need a
+ * fallback elsewhere (e.g. on the embedded H2 database).
+ */
+@Component
+public class DatabasePlatform {
+
+    private final Dialect dialect;
+
+    DatabasePlatform(EntityManagerFactory entityManagerFactory) {
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    public boolean isPostgres() {
+        return dialect instanceof PostgreSQLDialect;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * This package contains reusable persistence infrastructure.
+ */
+@NullMarked
+package app.todo.base.persistence;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,53 @@
+package app.todo.base.ui.metrics;
+
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the fetch callbacks of a lazy grid as {@code todo.grid.fetch}, tagged with the grid name, the requested page
+ * size and a bucket of the requested offset (so deep scrolling shows up separately from the first pages).
+ */
+public final class GridFetchMetrics {
+
+    private static final String METRIC_NAME = "todo.grid.fetch";
+
+    private final MeterRegistry meterRegistry;
+
+    private final String grid;
+
+    public GridFetchMetrics(MeterRegistry meterRegistry, String grid) {
+        this.meterRegistry = meterRegistry;
+        this.grid = grid;
+    }
+
+    /**
+     * Wraps a fetch callback so that each call is timed. The returned items are collected inside the timed section,
+     * because a lazily evaluated stream would otherwise do its work after the timer has stopped.
+     */
+    public <T> CallbackDataProvider.FetchCallback<T, Void> timed(CallbackDataProvider.FetchCallback<T, Void> callback) {
+        return query -> {
+            var sample = Timer.start(meterRegistry);
+            var items = callback.fetch(query).toList();
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("grid", grid)
+                    .tag("page.size", String.valueOf(query.getLimit()))
+                    .tag("offset.bucket", offsetBucket(query.getOffset()))
+                    .register(meterRegistry));
+            return items.stream();
+        };
+    }
+
+    static String offsetBucket(int offset) {
+        if (offset == 0) {
+            return "0";
+        } else if (offset < 1_000) {
+            return "1-999";
+        } else if (offset < 10_000) {
+            return "1000-9999";
+        } else if (offset < 100_000) {
+            return "10000-99999";
+        }
+        return "100000+";
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * This package contains reusable instrumentation for views.
+ */
+@NullMarked
+package app.todo.base.ui.metrics;
+
+import org.jspecify.annotations.NullMarked;
@@ -7,11 +7,12 @@ import jakarta.validation.constraints.Size;
 import org.jspecify.annotations.Nullable;
 
 @Entity
-@Table(name = "persona")
+@Table(name = "persona", indexes = @Index(name = "persona_apellido_nombre_idx", columnList = "apellido, nombre"))
 public class Persona extends AbstractEntity<Long> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persona_seq")
+    @SequenceGenerator(name = "persona_seq", sequenceName = "persona_seq", allocationSize = 50)
     @Column(name = "persona_id")
     private Long id;
 
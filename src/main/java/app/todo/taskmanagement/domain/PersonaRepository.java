@@ -4,9 +4,38 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface PersonaRepository extends JpaRepository<Persona, Long>, JpaSpecificationExecutor<Persona> {
 
     // Devuelve un "slice" paginado de todas las personas (sin contar el total de filas)
     Slice<Persona> findAllBy(Pageable pageable);
+
+    // Filas para la grilla: sólo los valores, sin entidades administradas por el contexto de persistencia
+    @Query("select new app.todo.taskmanagement.domain.PersonaRow(p.id, p.dni, p.apellido, p.nombre, p.edad) "
+            + "from Persona p order by p.id")
+    List<PersonaRow> findRows(Pageable pageable);
+
+    @Query("select new app.todo.taskmanagement.domain.PersonaRow(p.id, p.dni, p.apellido, p.nombre, p.edad) "
+            + "from Persona p where p.id in :ids")
+    List<PersonaRow> findRowsByIdIn(Collection<Long> ids);
+
+    // Filas ordenadas por nombre, para los selectores de persona
+    @Query("select new app.todo.taskmanagement.domain.PersonaRow(p.id, p.dni, p.apellido, p.nombre, p.edad) "
+            + "from Persona p order by p.apellido, p.nombre, p.id")
+    List<PersonaRow> findRowsByName(Pageable pageable);
+
+    // Busca por prefijo (ya en minúsculas y terminado en '%') sobre apellido, nombre o DNI. Las expresiones coinciden
+    // con los índices funcionales de schema-postgresql.sql para que la búsqueda no recorra toda la tabla.
+    @Query("""
+            select new app.todo.taskmanagement.domain.PersonaRow(p.id, p.dni, p.apellido, p.nombre, p.edad)
+            from Persona p
+            where lower(p.apellido) like :prefix escape '\\'
+               or lower(p.nombre) like :prefix escape '\\'
+               or cast(p.dni as String) like :prefix escape '\\'
+            order by p.apellido, p.nombre, p.id""")
+    List<PersonaRow> findRowsByPrefix(String prefix, Pageable pageable);
 }
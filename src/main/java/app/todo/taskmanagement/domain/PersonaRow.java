@@ -0,0 +1,17 @@
+package app.todo.taskmanagement.domain;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * What the persona grid shows of a persona, read straight from a query instead of as a managed entity. Immutable, so
+ * it can be cached and shared between sessions. Edit the persona by loading it by {@link #id()}.
+ */
+public record PersonaRow(Long id, Integer dni, String apellido, String nombre, @Nullable Integer edad) {
+
+    public static PersonaRow of(Persona persona) {
+        return new PersonaRow(Objects.requireNonNull(persona.getId()), persona.getDni(), persona.getApellido(),
+                persona.getNombre(), persona.getEdad());
+    }
+}
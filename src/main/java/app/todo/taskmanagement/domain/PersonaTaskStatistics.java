@@ -0,0 +1,8 @@
+package app.todo.taskmanagement.domain;
+
+/**
+ * One dashboard row: a persona with its task counters.
+ */
+public record PersonaTaskStatistics(Long personaId, String apellido, String nombre, long open, long done, long overdue,
+        long dueThisWeek) {
+}
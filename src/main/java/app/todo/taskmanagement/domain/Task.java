@@ -9,13 +9,17 @@ import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "task")
+@Table(name = "task", indexes = {
+        @Index(name = "task_creation_date_task_id_idx", columnList = "creation_date, task_id"),
+        // Filtered task lists (TaskFilter); persona_id first, so it also serves lookups by persona alone
+        @Index(name = "task_persona_id_done_due_date_idx", columnList = "persona_id, done, due_date") })
 public class Task extends AbstractEntity<Long> {
 
     public static final int DESCRIPTION_MAX_LENGTH = 255;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     @Column(name = "task_id")
     private Long id;
 
@@ -33,6 +37,10 @@ public class Task extends AbstractEntity<Long> {
     @Column(name = "done", columnDefinition = "boolean default false")
     private Boolean done;
 
+    // Set by the overdue scanner once an open task is past its due date, cleared when the due date changes
+    @Column(name = "overdue", columnDefinition = "boolean default false")
+    private Boolean overdue;
+
     @Override
     public @Nullable Long getId() {
         return id;
@@ -46,6 +54,14 @@ public class Task extends AbstractEntity<Long> {
         return this.done;
     }
 
+    public Boolean isOverdue() {
+        return overdue;
+    }
+
+    public void setOverdue(Boolean overdue) {
+        this.overdue = overdue;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -70,7 +86,7 @@ public class Task extends AbstractEntity<Long> {
         this.dueDate = dueDate;
     }
     
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "persona_id", nullable = false)
     private Persona persona;
 
@@ -0,0 +1,18 @@
+package app.todo.taskmanagement.domain;
+
+/**
+ * Number of open, done, overdue and due-this-week tasks, either in total or as the change a task write makes to them.
+ */
+public record TaskCounts(long open, long done, long overdue, long dueThisWeek) {
+
+    public static final TaskCounts ZERO = new TaskCounts(0, 0, 0, 0);
+
+    public TaskCounts plus(TaskCounts other) {
+        return new TaskCounts(open + other.open, done + other.done, overdue + other.overdue,
+                dueThisWeek + other.dueThisWeek);
+    }
+
+    public TaskCounts negate() {
+        return new TaskCounts(-open, -done, -overdue, -dueThisWeek);
+    }
+}
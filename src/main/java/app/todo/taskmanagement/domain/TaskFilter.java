@@ -0,0 +1,41 @@
+package app.todo.taskmanagement.domain;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * What the task list is narrowed down to. Every condition that is set must hold; {@code null} (or {@code false} for
+ * {@code overdue}) leaves the condition out.
+ */
+public record TaskFilter(@Nullable Boolean done, @Nullable Long personaId, @Nullable LocalDate dueFrom,
+        @Nullable LocalDate dueTo, boolean overdue) {
+
+    public static final TaskFilter NONE = new TaskFilter(null, null, null, null, false);
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+
+    public Specification<Task> toSpecification() {
+        var specifications = new ArrayList<Specification<Task>>();
+        if (done != null) {
+            specifications.add(TaskSpecifications.isDone(done));
+        }
+        if (personaId != null) {
+            specifications.add(TaskSpecifications.assignedTo(personaId));
+        }
+        if (dueFrom != null) {
+            specifications.add(TaskSpecifications.dueOnOrAfter(dueFrom));
+        }
+        if (dueTo != null) {
+            specifications.add(TaskSpecifications.dueOnOrBefore(dueTo));
+        }
+        if (overdue) {
+            specifications.add(TaskSpecifications.isOverdue());
+        }
+        return Specification.allOf(specifications);
+    }
+}
@@ -1,12 +1,105 @@
 package app.todo.taskmanagement.domain;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface TaskRepository
+        extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task>, TaskRepositoryCustom {
+
+    // Grid rows: only the columns the grid shows, with the persona's name from the same join
+    String SELECT_ROWS = """
+            select new app.todo.taskmanagement.domain.TaskRow(t.id, t.description, t.creationDate, t.dueDate,
+                coalesce(t.done, false), coalesce(t.overdue, false), concat(p.apellido, ', ', p.nombre), false)
+            from Task t join t.persona p
+            """;
 
     // If you don't need a total row count, Slice is better than Page.
     Slice<Task> findAllBy(Pageable pageable);
+
+    // Same page as findAllBy, but the persona is fetched in the same select so rendering a page costs one statement.
+    @EntityGraph(attributePaths = "persona")
+    Slice<Task> findAllWithPersonaBy(Pageable pageable);
+
+    @EntityGraph(attributePaths = "persona")
+    Optional<Task> findWithPersonaById(Long id);
+
+    @Query(SELECT_ROWS)
+    List<TaskRow> findRows(Pageable pageable);
+
+    // Keyset paging, newest first. The pageable only limits the result; the order is fixed so that it matches the
+    // (creation_date, task_id) index and the row-value seek below.
+    @Query(SELECT_ROWS + "order by t.creationDate desc, t.id desc")
+    List<TaskRow> findNewestRows(Pageable pageable);
+
+    @Query(SELECT_ROWS + "where (t.creationDate, t.id) < (:creationDate, :id) order by t.creationDate desc, t.id desc")
+    List<TaskRow> findRowsOlderThan(Instant creationDate, Long id, Pageable pageable);
+
+    @Query(SELECT_ROWS + "where t.id in :ids")
+    List<TaskRow> findRowsByIdIn(Collection<Long> ids);
+
+    // Full-text search, best matches first. Only on PostgreSQL: description_tsv and its GIN index are created by
+    // schema-postgresql.sql.
+    @Query(value = """
+            select t.task_id from task t
+            where t.description_tsv @@ websearch_to_tsquery('simple', :query)
+            order by ts_rank(t.description_tsv, websearch_to_tsquery('simple', :query)) desc, t.task_id desc""",
+            nativeQuery = true)
+    List<Long> searchIds(String query, Pageable pageable);
+
+    // Forward-only cursor over all tasks for exports. Must be consumed inside a transaction (PostgreSQL only streams
+    // with auto-commit off) and closed afterwards; the fetch size bounds how many rows the driver buffers.
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("select t from Task t join fetch t.persona order by t.id")
+    Stream<Task> streamAllWithPersona();
+
+    // What a change to these tasks replaces, read without loading (and thus without merging into) the entities
+    @Query("""
+            select new app.todo.taskmanagement.domain.TaskState(t.id, t.persona.id, t.done, t.dueDate)
+            from Task t where t.id in :ids""")
+    List<TaskState> findStatesByIdIn(Collection<Long> ids);
+
+    @Query("select t.id from Task t where t.persona.id = :personaId")
+    List<Long> findIdsByPersonaId(Long personaId, Pageable pageable);
+
+    @Modifying
+    @Query("update Task t set t.done = :done where t.id in :ids")
+    int updateDone(boolean done, Collection<Long> ids);
+
+    // Open tasks past their due date that have not been flagged yet, in due date order. The conditions match the
+    // partial index task_overdue_scan_idx of schema-postgresql.sql, which only holds unflagged open tasks, so the scan
+    // never reads done or already flagged ones.
+    @Query("""
+            select new app.todo.taskmanagement.domain.TaskState(t.id, t.persona.id, t.done, t.dueDate)
+            from Task t
+            where t.done = false and t.overdue = false and t.dueDate < :today
+            order by t.dueDate, t.id""")
+    List<TaskState> findNewlyOverdue(LocalDate today, Pageable pageable);
+
+    @Query("""
+            select new app.todo.taskmanagement.domain.TaskState(t.id, t.persona.id, t.done, t.dueDate)
+            from Task t
+            where t.done = false and t.overdue = false and t.dueDate < :today
+              and (t.dueDate, t.id) > (:dueDate, :id)
+            order by t.dueDate, t.id""")
+    List<TaskState> findNewlyOverdueAfter(LocalDate today, LocalDate dueDate, Long id, Pageable pageable);
+
+    @Modifying
+    @Query("update Task t set t.overdue = true where t.id in :ids")
+    int markOverdue(Collection<Long> ids);
 }
@@ -0,0 +1,19 @@
+package app.todo.taskmanagement.domain;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Queries of {@link TaskRepository} that Spring Data cannot derive, implemented by {@link TaskRepositoryImpl}.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Lists the grid rows of the tasks that match the specification, in the order of the pageable (newest first when
+     * it is unsorted). Unlike {@code findAll(Specification, Pageable)}, no entities are loaded and no count query is
+     * run. Besides the task's attributes, rows can be sorted by {@code personaName}.
+     */
+    List<TaskRow> findRows(Specification<Task> specification, Pageable pageable);
+}
@@ -0,0 +1,63 @@
+package app.todo.taskmanagement.domain;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "creationDate");
+
+    private final EntityManager entityManager;
+
+    TaskRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<TaskRow> findRows(Specification<Task> specification, Pageable pageable) {
+        var builder = entityManager.getCriteriaBuilder();
+        var query = builder.createQuery(TaskRow.class);
+        var task = query.from(Task.class);
+        var persona = task.join("persona");
+        // Same row as TaskRepository.SELECT_ROWS
+        var personaName = builder.concat(builder.concat(persona.get("apellido"), ", "), persona.<String> get("nombre"));
+        query.select(builder.construct(TaskRow.class, task.get("id"), task.get("description"), task.get("creationDate"),
+                task.get("dueDate"), builder.coalesce(task.<Boolean> get("done"), false),
+                builder.coalesce(task.<Boolean> get("overdue"), false), personaName, builder.literal(false)));
+        var predicate = specification.toPredicate(task, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(orders(pageable.getSortOr(NEWEST_FIRST), task, personaName, builder));
+        var typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    // The task id breaks ties, so that rows with equal sort values do not move between pages
+    private static List<Order> orders(Sort sort, Root<Task> task, Expression<String> personaName,
+            CriteriaBuilder builder) {
+        var orders = new ArrayList<Order>();
+        for (var order : sort) {
+            Expression<?> expression = order.getProperty().equals("personaName") ? personaName
+                    : task.get(order.getProperty());
+            orders.add(order.isAscending() ? builder.asc(expression) : builder.desc(expression));
+        }
+        if (sort.getOrderFor("id") == null) {
+            orders.add(builder.desc(task.get("id")));
+        }
+        return orders;
+    }
+}
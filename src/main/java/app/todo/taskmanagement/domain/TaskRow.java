@@ -0,0 +1,19 @@
+package app.todo.taskmanagement.domain;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * What the task grid shows of a task, read straight from a query instead of as a managed entity: no persistence
+ * context, no persona proxy, just the values of one row. Edit the task by loading it by {@link #id()}, unless it is
+ * {@code archived}: archived tasks only live in the task history and cannot be changed.
+ */
+public record TaskRow(Long id, String description, Instant creationDate, @Nullable LocalDate dueDate, boolean done,
+        boolean overdue, String personaName, boolean archived) {
+
+    public TaskRow withDone(boolean done) {
+        return new TaskRow(id, description, creationDate, dueDate, done, overdue, personaName, archived);
+    }
+}
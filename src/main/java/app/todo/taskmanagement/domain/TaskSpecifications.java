@@ -0,0 +1,37 @@
+package app.todo.taskmanagement.domain;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Conditions on tasks that can be combined into the where clause of a task query, see {@link TaskFilter}.
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    public static Specification<Task> isDone(boolean done) {
+        return (task, query, builder) -> builder.equal(task.get("done"), done);
+    }
+
+    // Compares the foreign key column, without joining the persona
+    public static Specification<Task> assignedTo(Long personaId) {
+        return (task, query, builder) -> builder.equal(task.get("persona").get("id"), personaId);
+    }
+
+    public static Specification<Task> dueOnOrAfter(LocalDate date) {
+        return (task, query, builder) -> builder.greaterThanOrEqualTo(task.get("dueDate"), date);
+    }
+
+    public static Specification<Task> dueOnOrBefore(LocalDate date) {
+        return (task, query, builder) -> builder.lessThanOrEqualTo(task.get("dueDate"), date);
+    }
+
+    // Flagged by the overdue scanner and still open; the flag stays set on tasks that were done afterwards
+    public static Specification<Task> isOverdue() {
+        return (task, query, builder) -> builder.and(builder.isFalse(task.get("done")),
+                builder.isTrue(task.get("overdue")));
+    }
+}
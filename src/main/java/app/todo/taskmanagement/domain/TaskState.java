@@ -0,0 +1,21 @@
+package app.todo.taskmanagement.domain;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The parts of a task that decide where it is counted in the {@link TaskStatistics}.
+ */
+public record TaskState(Long id, Long personaId, @Nullable Boolean done, @Nullable LocalDate dueDate) {
+
+    public static TaskState of(Task task) {
+        return new TaskState(Objects.requireNonNull(task.getId()), Objects.requireNonNull(task.getPersona().getId()),
+                task.isDone(), task.getDueDate());
+    }
+
+    public TaskState withDone(boolean done) {
+        return new TaskState(id, personaId, done, dueDate);
+    }
+}
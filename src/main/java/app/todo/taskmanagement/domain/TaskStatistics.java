@@ -0,0 +1,58 @@
+package app.todo.taskmanagement.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Task counters of one persona, kept up to date incrementally by the service layer so that the dashboard never has to
+ * count the task table. A task counts as open unless it is done; open tasks may additionally count as overdue or as due
+ * this week.
+ */
+@Entity
+@Table(name = "task_statistics")
+public class TaskStatistics {
+
+    @Id
+    @Column(name = "persona_id")
+    private Long personaId;
+
+    @Column(name = "open_count", nullable = false)
+    private long openCount;
+
+    @Column(name = "done_count", nullable = false)
+    private long doneCount;
+
+    @Column(name = "overdue_count", nullable = false)
+    private long overdueCount;
+
+    @Column(name = "due_this_week_count", nullable = false)
+    private long dueThisWeekCount;
+
+    protected TaskStatistics() {
+    }
+
+    public TaskStatistics(Long personaId, long openCount, long doneCount, long overdueCount, long dueThisWeekCount) {
+        this.personaId = personaId;
+        this.openCount = openCount;
+        this.doneCount = doneCount;
+        this.overdueCount = overdueCount;
+        this.dueThisWeekCount = dueThisWeekCount;
+    }
+
+    public Long getPersonaId() {
+        return personaId;
+    }
+
+    public TaskCounts getCounts() {
+        return new TaskCounts(openCount, doneCount, overdueCount, dueThisWeekCount);
+    }
+
+    public void setCounts(TaskCounts counts) {
+        this.openCount = counts.open();
+        this.doneCount = counts.done();
+        this.overdueCount = counts.overdue();
+        this.dueThisWeekCount = counts.dueThisWeek();
+    }
+}
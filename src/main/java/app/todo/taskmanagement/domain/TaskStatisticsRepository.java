@@ -0,0 +1,100 @@
+package app.todo.taskmanagement.domain;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface TaskStatisticsRepository extends JpaRepository<TaskStatistics, Long> {
+
+    // Applied in place, so that concurrent changes to the tasks of the same persona add up instead of overwriting each
+    // other.
+    @Modifying
+    @Query("""
+            update TaskStatistics s
+            set s.openCount = s.openCount + :open, s.doneCount = s.doneCount + :done,
+                s.overdueCount = s.overdueCount + :overdue, s.dueThisWeekCount = s.dueThisWeekCount + :dueThisWeek
+            where s.personaId = :personaId""")
+    int addCounts(Long personaId, long open, long done, long overdue, long dueThisWeek);
+
+    @Modifying
+    @Query("""
+            insert into TaskStatistics (personaId, openCount, doneCount, overdueCount, dueThisWeekCount)
+            values (:personaId, 0, 0, 0, 0)""")
+    void insertEmpty(Long personaId);
+
+    @Modifying
+    @Query("""
+            insert into TaskStatistics (personaId, openCount, doneCount, overdueCount, dueThisWeekCount)
+            select p.id, 0, 0, 0, 0 from Persona p
+            where not exists (select 1 from TaskStatistics s where s.personaId = p.id)""")
+    int insertMissing();
+
+    // Skips ids that are not personas (any more) or already have a row
+    @Modifying
+    @Query("""
+            insert into TaskStatistics (personaId, openCount, doneCount, overdueCount, dueThisWeekCount)
+            select p.id, 0, 0, 0, 0 from Persona p
+            where p.id in :personaIds and not exists (select 1 from TaskStatistics s where s.personaId = p.id)""")
+    int insertEmptyFor(Collection<Long> personaIds);
+
+    @Modifying
+    @Query("delete from TaskStatistics s where not exists (select 1 from Persona p where p.id = s.personaId)")
+    int deleteOrphans();
+
+    // Locks the next counter rows (SELECT ... FOR UPDATE) until the end of the transaction, so that task changes wait
+    // with their addCounts until the recount of these personas has been written. In persona order, the same order in
+    // which task changes lock the rows, so the two cannot deadlock.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from TaskStatistics s where s.personaId > :afterPersonaId order by s.personaId")
+    List<TaskStatistics> findNextForUpdate(Long afterPersonaId, Pageable pageable);
+
+    // Counts the tasks of the given personas from scratch, one row per persona that has any. Only meant for the
+    // reconciliation job; the conditions must match TaskStatisticsService.countOf.
+    @Query("""
+            select new app.todo.taskmanagement.domain.TaskStatistics(t.persona.id,
+                sum(case when t.done = true then 0 else 1 end),
+                sum(case when t.done = true then 1 else 0 end),
+                sum(case when t.done = true then 0 when t.dueDate < :today then 1 else 0 end),
+                sum(case when t.done = true then 0 when t.dueDate >= :today and t.dueDate < :weekEnd then 1 else 0 end))
+            from Task t
+            where t.persona.id in :personaIds
+            group by t.persona.id""")
+    List<TaskStatistics> countByPersona(LocalDate today, LocalDate weekEnd, Collection<Long> personaIds);
+
+    // How the counters change when the day moves on from 'from' to 'today': open tasks due before today become
+    // overdue, and the due this week window moves. Only open tasks due between 'from' and the end of the new week can
+    // change buckets, and those are read from task_open_due_date_idx (schema-postgresql.sql) instead of scanning the
+    // task table. One row per persona, in persona order.
+    @Query("""
+            select new app.todo.taskmanagement.domain.TaskStatistics(t.persona.id, 0L, 0L,
+                sum(case when t.dueDate < :today then 1 else 0 end),
+                sum(case when t.dueDate >= :today then 1 else 0 end)
+                    - sum(case when t.dueDate < :fromWeekEnd then 1 else 0 end))
+            from Task t
+            where t.done = false and t.dueDate >= :from and t.dueDate < :weekEnd
+            group by t.persona.id
+            order by t.persona.id""")
+    List<TaskStatistics> countRollOver(LocalDate from, LocalDate fromWeekEnd, LocalDate today, LocalDate weekEnd);
+
+    @Query("""
+            select new app.todo.taskmanagement.domain.TaskCounts(coalesce(sum(s.openCount), 0L),
+                coalesce(sum(s.doneCount), 0L), coalesce(sum(s.overdueCount), 0L),
+                coalesce(sum(s.dueThisWeekCount), 0L))
+            from TaskStatistics s""")
+    TaskCounts sumCounts();
+
+    // The pageable only limits the result; personas are always listed by name
+    @Query("""
+            select new app.todo.taskmanagement.domain.PersonaTaskStatistics(p.id, p.apellido, p.nombre, s.openCount,
+                s.doneCount, s.overdueCount, s.dueThisWeekCount)
+            from TaskStatistics s join Persona p on p.id = s.personaId
+            order by p.apellido, p.nombre, p.id""")
+    List<PersonaTaskStatistics> findAllWithPersona(Pageable pageable);
+}
@@ -0,0 +1,8 @@
+package app.todo.taskmanagement.service;
+
+/**
+ * What happened to the entities of a {@link TaskChangedEvent} or {@link PersonaChangedEvent}.
+ */
+public enum ChangeKind {
+    CREATED, UPDATED, DELETED
+}
@@ -0,0 +1,10 @@
+package app.todo.taskmanagement.service;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A persona to be created, or updated if one with the same DNI exists, by
+ * {@link PersonaService#importPersonas(java.util.List)}.
+ */
+public record NewPersona(Integer dni, String apellido, String nombre, @Nullable Integer edad) {
+}
@@ -0,0 +1,12 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.Persona;
+import org.jspecify.annotations.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * A task to be created by {@link TaskService#createTasks(java.util.Collection)}.
+ */
+public record NewTask(String description, @Nullable LocalDate dueDate, Persona persona) {
+}
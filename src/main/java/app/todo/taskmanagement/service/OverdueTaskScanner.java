@@ -0,0 +1,48 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.TaskState;
+import org.jspecify.annotations.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Flags open tasks whose due date has passed, every minute by default ({@code app.tasks.overdue-scan-cron}). Tasks are
+ * processed in batches in (due date, id) order, each batch in its own short transaction, and a flagged task is not
+ * looked at again until its due date changes, so a run only costs as much as the number of tasks that became overdue
+ * since the previous one.
+ */
+@Component
+public class OverdueTaskScanner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final TaskService taskService;
+
+    private final Clock clock;
+
+    OverdueTaskScanner(TaskService taskService, Clock clock) {
+        this.taskService = taskService;
+        this.clock = clock;
+    }
+
+    /**
+     * Flags all tasks that are overdue today and returns how many there were.
+     */
+    @Scheduled(cron = "${app.tasks.overdue-scan-cron:0 * * * * *}")
+    public int scan() {
+        var today = LocalDate.now(clock);
+        var flagged = 0;
+        @Nullable TaskState last = null;
+        while (true) {
+            var batch = taskService.markOverdue(today, last, BATCH_SIZE);
+            flagged += batch.size();
+            if (batch.size() < BATCH_SIZE) {
+                return flagged;
+            }
+            last = batch.get(batch.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package app.todo.taskmanagement.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link PersonaService} whenever personas are created, updated or deleted. Deleting a persona also
+ * deletes its tasks, without a separate {@link TaskChangedEvent}.
+ */
+public record PersonaChangedEvent(ChangeKind kind, Set<Long> personaIds) {
+}
@@ -0,0 +1,32 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.PersonaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Last step of {@link PersonaService#deletePersona(Long)}: deletes the persona and its task counters in one short
+ * transaction, once its tasks are gone. A bean of its own, since a call from within {@link PersonaService} would not
+ * go through the transactional proxy.
+ */
+@Service
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+class PersonaDeleter {
+
+    private final PersonaRepository personaRepository;
+
+    private final TaskStatisticsService statisticsService;
+
+    PersonaDeleter(PersonaRepository personaRepository, TaskStatisticsService statisticsService) {
+        this.personaRepository = personaRepository;
+        this.statisticsService = statisticsService;
+    }
+
+    void delete(Long personaId) {
+        statisticsService.personaDeleted(personaId);
+        personaRepository.deleteAllByIdInBatch(List.of(personaId));
+    }
+}
@@ -0,0 +1,16 @@
+package app.todo.taskmanagement.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link PersonaImporter} run. Only the first rejected lines are listed in {@code rejects};
+ * {@code rejected} counts all of them.
+ */
+public record PersonaImportResult(long created, long updated, long rejected, List<Reject> rejects) {
+
+    /**
+     * A line of the file that was not imported, and why.
+     */
+    public record Reject(long line, String reason) {
+    }
+}
@@ -0,0 +1,146 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.service.PersonaImportResult.Reject;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports personas from a CSV file (UTF-8, comma separated, columns {@code dni,apellido,nombre,edad}, optionally with
+ * that header line). The file is read line by line and upserted in batches, each in its own transaction through
+ * {@link PersonaService#importPersonas(List)}, so memory use does not depend on the size of the file and a failing
+ * batch does not undo the ones before it. Lines that are not a valid persona are skipped and reported. When a DNI
+ * occurs on several lines, the last one wins.
+ */
+@Component
+public class PersonaImporter {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int MAX_REPORTED_REJECTS = 100;
+
+    // Same limits as the persona form
+    private static final int MIN_DNI = 1000000;
+    private static final int MAX_DNI = 99999999;
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final int MAX_EDAD = 130;
+
+    private final PersonaService personaService;
+
+    PersonaImporter(PersonaService personaService) {
+        this.personaService = personaService;
+    }
+
+    public PersonaImportResult importCsv(InputStream in) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        // By DNI: a DNI repeated within a batch would make the upsert affect the same row twice, which PostgreSQL
+        // rejects once the driver rewrites the batch into a single multi-row insert. The last line with a DNI wins.
+        var batch = new LinkedHashMap<Integer, NewPersona>();
+        var rejects = new ArrayList<Reject>();
+        long lineNumber = 0;
+        long created = 0;
+        long imported = 0;
+        long rejected = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || lineNumber == 1 && line.strip().toLowerCase(Locale.ROOT).startsWith("dni")) {
+                continue;
+            }
+            try {
+                var persona = parse(line);
+                batch.put(persona.dni(), persona);
+            } catch (IllegalArgumentException ex) {
+                if (rejected++ < MAX_REPORTED_REJECTS) {
+                    rejects.add(new Reject(lineNumber, ex.getMessage()));
+                }
+                continue;
+            }
+            if (batch.size() == BATCH_SIZE) {
+                created += personaService.importPersonas(List.copyOf(batch.values()));
+                imported += batch.size();
+                batch.clear();
+            }
+        }
+        created += personaService.importPersonas(List.copyOf(batch.values()));
+        imported += batch.size();
+        return new PersonaImportResult(created, imported - created, rejected, List.copyOf(rejects));
+    }
+
+    private static NewPersona parse(String line) {
+        var fields = fields(line);
+        if (fields.size() < 3 || fields.size() > 4) {
+            throw new IllegalArgumentException("Se esperaban 3 o 4 columnas y hay " + fields.size());
+        }
+        var dni = number(fields.get(0), "DNI", MIN_DNI, MAX_DNI);
+        var apellido = name(fields.get(1), "Apellido");
+        var nombre = name(fields.get(2), "Nombre");
+        var edad = fields.size() < 4 || fields.get(3).isBlank() ? null : number(fields.get(3), "Edad", 0, MAX_EDAD);
+        return new NewPersona(dni, apellido, nombre, edad);
+    }
+
+    private static int number(String value, String column, int min, int max) {
+        int number;
+        try {
+            number = Integer.parseInt(value.strip());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + " no es un número: " + value);
+        }
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(column + " fuera de rango: " + number);
+        }
+        return number;
+    }
+
+    private static String name(String value, String column) {
+        var name = value.strip();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException(column + " es obligatorio");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException(column + " tiene más de " + MAX_NAME_LENGTH + " caracteres");
+        }
+        return name;
+    }
+
+    // Splits a line into fields. A field may be quoted, with "" standing for a quote inside it, as written by
+    // TaskExportService; quoted line breaks are not supported.
+    private static List<String> fields(String line) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
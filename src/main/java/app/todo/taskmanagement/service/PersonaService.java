@@ -1,45 +1,225 @@
 package app.todo.taskmanagement.service;
 
+import app.todo.base.persistence.DatabasePlatform;
 import app.todo.taskmanagement.domain.Persona;
 import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.PersonaRow;
+import io.micrometer.core.annotation.Timed;
 import org.jspecify.annotations.Nullable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Service
 @Transactional(propagation = Propagation.REQUIRES_NEW)
+@Timed("todo.service")
 public class PersonaService {
 
+    // Personas are read on every grid page and combo box filter but rarely change, so pages are cached and every change
+    // made through this service drops all cached pages. The cached reads stay on the primary database (not readOnly):
+    // a page read from a lagging replica right after an eviction would be served stale until it expires.
+    static final String PAGES_CACHE = "persona-pages";
+    static final String SEARCH_CACHE = "persona-search";
+
+    private static final int TASK_DELETE_CHUNK_SIZE = 1000;
+
+    // Same block size as the persona_seq generator of Persona (pooled-lo: each value starts a block of ids)
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String POSTGRES_ID_BLOCKS = "select nextval('persona_seq') from generate_series(1, :blocks)";
+    private static final String H2_ID_BLOCKS = "select next value for persona_seq from system_range(1, :blocks)";
+
+    // Upserts on the unique DNI. An existing persona keeps its id and uuid, so its tasks stay assigned to it.
+    private static final String POSTGRES_UPSERT = """
+            insert into persona (persona_id, uuid, dni, apellido, nombre, edad) values (?, ?, ?, ?, ?, ?)
+            on conflict (dni) do update
+                set apellido = excluded.apellido, nombre = excluded.nombre, edad = excluded.edad""";
+    private static final String H2_UPSERT = """
+            merge into persona p
+            using (values (cast(? as bigint), cast(? as uuid), cast(? as integer), cast(? as varchar(50)),
+                           cast(? as varchar(50)), cast(? as integer)))
+                v (persona_id, uuid, dni, apellido, nombre, edad)
+            on p.dni = v.dni
+            when matched then update set apellido = v.apellido, nombre = v.nombre, edad = v.edad
+            when not matched then insert (persona_id, uuid, dni, apellido, nombre, edad)
+                values (v.persona_id, v.uuid, v.dni, v.apellido, v.nombre, v.edad)""";
+
     private final PersonaRepository personaRepository;
 
-    PersonaService(PersonaRepository personaRepository) {
+    private final JdbcClient jdbcClient;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DatabasePlatform databasePlatform;
+
+    private final TaskService taskService;
+
+    private final TaskStatisticsService statisticsService;
+
+    private final PersonaDeleter personaDeleter;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    PersonaService(PersonaRepository personaRepository, JdbcClient jdbcClient, JdbcTemplate jdbcTemplate,
+            DatabasePlatform databasePlatform, TaskService taskService, TaskStatisticsService statisticsService,
+            PersonaDeleter personaDeleter, ApplicationEventPublisher eventPublisher) {
         this.personaRepository = personaRepository;
+        this.jdbcClient = jdbcClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.taskService = taskService;
+        this.statisticsService = statisticsService;
+        this.personaDeleter = personaDeleter;
+        this.eventPublisher = eventPublisher;
     }
 
+    @CacheEvict(cacheNames = { PAGES_CACHE, SEARCH_CACHE }, allEntries = true)
     public void createPersona(Integer dni, String apellido, String nombre, @Nullable Integer edad) {
         var persona = new Persona();
         persona.setDni(dni);
         persona.setApellido(apellido);
         persona.setNombre(nombre);
         persona.setEdad(edad);
-        personaRepository.saveAndFlush(persona);
+        var saved = personaRepository.saveAndFlush(persona);
+        statisticsService.personaCreated(Objects.requireNonNull(saved.getId()));
+        publish(ChangeKind.CREATED, saved);
+    }
+
+    /**
+     * Creates the given personas, or updates the apellido, nombre and edad of those whose DNI already exists, with one
+     * JDBC batch of upserts, and returns how many were created. The ids of new personas are taken from the persona
+     * sequence a block at a time, as Hibernate does. The personas are expected to be valid already; meant to be called
+     * by {@link PersonaImporter} with one batch of a file at a time.
+     */
+    @CacheEvict(cacheNames = { PAGES_CACHE, SEARCH_CACHE }, allEntries = true)
+    public int importPersonas(List<NewPersona> personas) {
+        if (personas.isEmpty()) {
+            return 0;
+        }
+        var ids = nextIds(personas.size());
+        var rows = new ArrayList<Object[]>(personas.size());
+        for (int i = 0; i < personas.size(); i++) {
+            var persona = personas.get(i);
+            rows.add(new Object[] { ids.get(i), UUID.randomUUID(), persona.dni(), persona.apellido(), persona.nombre(),
+                    persona.edad() });
+        }
+        jdbcTemplate.batchUpdate(databasePlatform.isPostgres() ? POSTGRES_UPSERT : H2_UPSERT, rows);
+
+        // Rows whose DNI existed kept their own id, so the ids handed out here only identify the new personas
+        var affected = jdbcClient.sql("select persona_id from persona where dni in (:dnis)")
+                .param("dnis", personas.stream().map(NewPersona::dni).toList())
+                .query(Long.class).list();
+        var assigned = new HashSet<>(ids);
+        var created = affected.stream().filter(assigned::contains).collect(Collectors.toSet());
+        var updated = affected.stream().filter(id -> !assigned.contains(id)).collect(Collectors.toSet());
+        if (!created.isEmpty()) {
+            statisticsService.personasCreated(created);
+            eventPublisher.publishEvent(new PersonaChangedEvent(ChangeKind.CREATED, created));
+        }
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(new PersonaChangedEvent(ChangeKind.UPDATED, updated));
+        }
+        return created.size();
     }
 
+    private List<Long> nextIds(int count) {
+        var blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        var ids = new ArrayList<Long>(blocks * ID_BLOCK_SIZE);
+        jdbcClient.sql(databasePlatform.isPostgres() ? POSTGRES_ID_BLOCKS : H2_ID_BLOCKS).param("blocks", blocks)
+                .query(Long.class).list()
+                .forEach(first -> LongStream.range(first, first + ID_BLOCK_SIZE).forEach(ids::add));
+        return ids.subList(0, count);
+    }
+
+    @CacheEvict(cacheNames = { PAGES_CACHE, SEARCH_CACHE }, allEntries = true)
     public void updatePersona(Persona persona) {
-        personaRepository.saveAndFlush(persona);
+        publish(ChangeKind.UPDATED, personaRepository.saveAndFlush(persona));
+    }
+
+    /**
+     * Loads the persona, e.g. to edit it. Read from the primary database, not the replica, for the same reason as
+     * {@link TaskService#get(Long)}.
+     */
+    public Optional<Persona> get(Long id) {
+        return personaRepository.findById(id);
     }
 
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
     public List<Persona> list(Pageable pageable) {
         return personaRepository.findAllBy(pageable).toList();
     }
+
+    /**
+     * Lists the grid rows of the given personas, e.g. to refresh the rows of personas that have changed. Read from the
+     * primary database, since the change has just been committed there and may not have reached the replica yet.
+     */
+    public List<PersonaRow> listRowsByIds(Collection<Long> ids) {
+        return personaRepository.findRowsByIdIn(ids);
+    }
+
+    /**
+     * Lists a page of personas as grid rows. Rows are immutable, so the cached pages can be shared by all sessions.
+     */
+    @Cacheable(PAGES_CACHE)
+    public List<PersonaRow> listRows(Pageable pageable) {
+        return personaRepository.findRows(pageable);
+    }
+
+    /**
+     * Lists the personas whose apellido, nombre or DNI start with {@code filter} (case-insensitive), ordered by name.
+     * Meant for filter-as-you-type selectors, which fetch one page at a time instead of the whole table. Like the grid
+     * pages, the results are immutable rows shared by all sessions; load the persona by id to assign it.
+     */
+    @Cacheable(SEARCH_CACHE)
+    public List<PersonaRow> search(String filter, Pageable pageable) {
+        var prefix = filter.strip().toLowerCase(Locale.ROOT);
+        if (prefix.isEmpty()) {
+            return personaRepository.findRowsByName(pageable);
+        }
+        var pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return personaRepository.findRowsByPrefix(pattern, pageable);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
     public List<Persona> listAll() {
         return personaRepository.findAll();
     }
+
+    /**
+     * Deletes the persona together with all its tasks. The tasks go first, in chunks that each commit in their own
+     * short transaction, and then the persona with its counters in one more; this method only drives them, without a
+     * transaction (or connection) of its own. So deleting a persona with many tasks never holds many row locks for
+     * long, and nothing is loaded into memory.
+     */
+    @CacheEvict(cacheNames = { PAGES_CACHE, SEARCH_CACHE }, allEntries = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deletePersona(Long id) {
-        personaRepository.deleteById(id);
+        while (taskService.deleteTasksOfPersona(id, TASK_DELETE_CHUNK_SIZE) == TASK_DELETE_CHUNK_SIZE) {
+            // Keep going until a chunk comes back short, i.e. there are no tasks left
+        }
+        personaDeleter.delete(id);
+        eventPublisher.publishEvent(new PersonaChangedEvent(ChangeKind.DELETED, Set.of(id)));
+    }
+
+    private void publish(ChangeKind kind, Persona persona) {
+        eventPublisher.publishEvent(new PersonaChangedEvent(kind, Set.of(Objects.requireNonNull(persona.getId()))));
     }
 }
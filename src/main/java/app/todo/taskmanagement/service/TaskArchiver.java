@@ -0,0 +1,47 @@
+package app.todo.taskmanagement.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Moves done tasks older than {@code app.tasks.archive-after} (90 days by default, counted from their creation) into
+ * the task history, once a night by default ({@code app.tasks.archive-cron}). Tasks are moved in batches, each in its
+ * own short transaction, so the job never locks many rows of the task table at once.
+ */
+@Component
+public class TaskArchiver {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final TaskHistoryService historyService;
+
+    private final Duration archiveAfter;
+
+    private final Clock clock;
+
+    TaskArchiver(TaskHistoryService historyService, @Value("${app.tasks.archive-after:P90D}") Duration archiveAfter,
+            Clock clock) {
+        this.historyService = historyService;
+        this.archiveAfter = archiveAfter;
+        this.clock = clock;
+    }
+
+    /**
+     * Archives all done tasks that are old enough and returns how many there were.
+     */
+    @Scheduled(cron = "${app.tasks.archive-cron:0 30 3 * * *}")
+    public int archive() {
+        var createdBefore = clock.instant().minus(archiveAfter);
+        var archived = 0;
+        int moved;
+        do {
+            moved = historyService.archive(createdBefore, BATCH_SIZE);
+            archived += moved;
+        } while (moved == BATCH_SIZE);
+        return archived;
+    }
+}
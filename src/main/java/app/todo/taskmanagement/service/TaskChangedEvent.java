@@ -0,0 +1,14 @@
+package app.todo.taskmanagement.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link TaskService} whenever tasks are created, updated or deleted. Listeners that need the changes to be
+ * visible in the database should use {@code @TransactionalEventListener}.
+ */
+public record TaskChangedEvent(ChangeKind kind, Set<Long> taskIds) {
+
+    public TaskChangedEvent {
+        taskIds = Set.copyOf(taskIds);
+    }
+}
@@ -0,0 +1,17 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.TaskRow;
+
+import java.time.Instant;
+
+/**
+ * Position of a task in the newest-first task list. Passing the cursor of the last task of a page to
+ * {@link TaskService#listAfter(TaskCursor, int)} returns the next page without the database having to skip the earlier
+ * rows.
+ */
+public record TaskCursor(Instant creationDate, Long id) {
+
+    public static TaskCursor of(TaskRow row) {
+        return new TaskCursor(row.creationDate(), row.id());
+    }
+}
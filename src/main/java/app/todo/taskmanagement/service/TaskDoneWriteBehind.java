@@ -0,0 +1,79 @@
+package app.todo.taskmanagement.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for the done flag of tasks. Toggling a checkbox only records the new value here; repeated
+ * toggles of the same task overwrite each other, and the surviving values are written with
+ * {@link TaskService#updateDone(Map)} in a single transaction.
+ * <p>
+ * Durability: a buffered value lives only in memory until the next flush. Flushes happen every
+ * {@code app.tasks.done-flush-interval} (one second by default), whenever {@link #flush()} is called (the task views do
+ * so when they are detached or reload their data) and when the application shuts down gracefully. If the JVM dies in
+ * between, the buffered changes are lost and the tasks keep their previous value. If a flush fails, its values are put
+ * back into the buffer, unless a newer value for the same task has been recorded meanwhile, and retried on the next
+ * flush.
+ * </p>
+ * <p>
+ * The buffer holds one value per task, for about {@value #MAX_PENDING} tasks at most: once it is full (e.g. while the
+ * database is unreachable), recording a toggle of another task flushes first, so that the failure reaches the
+ * caller instead of the buffer growing without bound.
+ * </p>
+ */
+@Component
+public class TaskDoneWriteBehind {
+
+    static final int MAX_PENDING = 10_000;
+
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+
+    // Not synchronized: a virtual thread blocking on the database inside a monitor would pin its carrier thread
+    private final Lock flushLock = new ReentrantLock();
+
+    private final TaskService taskService;
+
+    TaskDoneWriteBehind(TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    public void setDone(Long taskId, boolean done) {
+        if (pending.size() >= MAX_PENDING && !pending.containsKey(taskId)) {
+            flush();
+        }
+        pending.put(taskId, done);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.done-flush-interval:PT1S}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            var batch = new HashMap<Long, Boolean>();
+            Map.copyOf(pending).forEach((id, done) -> {
+                // A value recorded after the copy stays in the buffer for the next flush
+                if (pending.remove(id, done)) {
+                    batch.put(id, done);
+                }
+            });
+            try {
+                taskService.updateDone(batch);
+            } catch (RuntimeException ex) {
+                batch.forEach(pending::putIfAbsent);
+                throw ex;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.Task;
+import app.todo.taskmanagement.domain.TaskRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Exports all tasks, with the persona they are assigned to, as CSV or JSON. The tasks are read through a forward-only
+ * cursor and detached as soon as they have been written, so memory use does not depend on the number of tasks.
+ */
+@Service
+@Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+@Timed("todo.service")
+public class TaskExportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Spreadsheets evaluate a cell starting with one of these as a formula, so such values are prefixed with a quote
+    // (CSV injection)
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final TaskRepository taskRepository;
+
+    private final EntityManager entityManager;
+
+    TaskExportService(TaskRepository taskRepository, EntityManager entityManager) {
+        this.taskRepository = taskRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Writes all tasks as CSV (UTF-8, comma separated, with a header line) to {@code out}, which is left open.
+     */
+    public void exportCsv(OutputStream out) throws IOException {
+        var writer = writer(out);
+        writer.write("task_id,description,creation_date,due_date,done,persona_id,dni,apellido,nombre\n");
+        forEachTask(task -> {
+            var persona = task.getPersona();
+            try {
+                writer.write(String.join(",", String.valueOf(task.getId()), csv(task.getDescription()),
+                        String.valueOf(task.getCreationDate()), Objects.toString(task.getDueDate(), ""),
+                        String.valueOf(Boolean.TRUE.equals(task.isDone())), String.valueOf(persona.getId()),
+                        String.valueOf(persona.getDni()), csv(persona.getApellido()), csv(persona.getNombre())));
+                writer.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.flush();
+    }
+
+    /**
+     * Writes all tasks as a JSON array to {@code out}, which is left open.
+     */
+    public void exportJson(OutputStream out) throws IOException {
+        try (var json = JSON_FACTORY.createGenerator(writer(out))) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            forEachTask(task -> {
+                var persona = task.getPersona();
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", Objects.requireNonNull(task.getId()));
+                    json.writeStringField("description", task.getDescription());
+                    json.writeStringField("creationDate", task.getCreationDate().toString());
+                    json.writeStringField("dueDate", Objects.toString(task.getDueDate(), null));
+                    json.writeBooleanField("done", Boolean.TRUE.equals(task.isDone()));
+                    json.writeObjectFieldStart("persona");
+                    json.writeNumberField("id", Objects.requireNonNull(persona.getId()));
+                    json.writeNumberField("dni", persona.getDni());
+                    json.writeStringField("apellido", persona.getApellido());
+                    json.writeStringField("nombre", persona.getNombre());
+                    json.writeEndObject();
+                    json.writeEndObject();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            json.writeEndArray();
+        }
+    }
+
+    private void forEachTask(Consumer<Task> action) throws IOException {
+        try (var tasks = taskRepository.streamAllWithPersona()) {
+            tasks.forEach(task -> {
+                action.accept(task);
+                entityManager.detach(task.getPersona());
+                entityManager.detach(task);
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private static String csv(String value) {
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,171 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.base.persistence.DatabasePlatform;
+import app.todo.taskmanagement.domain.TaskRepository;
+import app.todo.taskmanagement.domain.TaskRow;
+import io.micrometer.core.annotation.Timed;
+import org.jspecify.annotations.Nullable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves done tasks out of the {@code task} table into {@code task_history}, and lists tasks together with the archived
+ * ones on request. The history table is not a JPA entity: on PostgreSQL it is partitioned by year of creation (see
+ * schema-postgresql.sql), which Hibernate cannot create or update, and rows are only ever moved and read in bulk.
+ * <p>
+ * An archived task keeps its id, description and dates, and a snapshot of the name of the persona it was assigned to,
+ * so it can still be shown after the persona has been renamed or deleted.
+ * </p>
+ */
+@Service
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@Timed("todo.service")
+public class TaskHistoryService {
+
+    // Both branches are cut to the rows the page can need before they are merged, so each one is a short index scan
+    // of (creation_date, task_id) instead of a full scan of both tables.
+    private static final String ROWS_WITH_ARCHIVED = """
+            select * from (
+                (select t.task_id, t.description, t.creation_date, t.due_date, coalesce(t.done, false) as done,
+                        coalesce(t.overdue, false) as overdue, concat(p.apellido, ', ', p.nombre) as persona_name,
+                        false as archived
+                 from task t join persona p on p.persona_id = t.persona_id
+                 where %1$s
+                 order by t.creation_date desc, t.task_id desc
+                 limit :branchLimit)
+                union all
+                (select h.task_id, h.description, h.creation_date, h.due_date, true, false, h.persona_name, true
+                 from task_history h
+                 where %2$s
+                 order by h.creation_date desc, h.task_id desc
+                 limit :branchLimit)
+            ) r
+            order by r.creation_date desc, r.task_id desc
+            limit :limit offset :offset""";
+
+    private final JdbcClient jdbcClient;
+
+    private final TaskRepository taskRepository;
+
+    private final TaskSearchIndex searchIndex;
+
+    private final TaskStatisticsService statisticsService;
+
+    private final DatabasePlatform databasePlatform;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Clock clock;
+
+    TaskHistoryService(JdbcClient jdbcClient, TaskRepository taskRepository, TaskSearchIndex searchIndex,
+            TaskStatisticsService statisticsService, DatabasePlatform databasePlatform,
+            ApplicationEventPublisher eventPublisher, Clock clock) {
+        this.jdbcClient = jdbcClient;
+        this.taskRepository = taskRepository;
+        this.searchIndex = searchIndex;
+        this.statisticsService = statisticsService;
+        this.databasePlatform = databasePlatform;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+    }
+
+    /**
+     * Moves up to {@code limit} done tasks created before {@code createdBefore} to the history table, oldest first, and
+     * returns how many were moved. Meant to be called in a loop by {@link TaskArchiver}, one transaction per batch.
+     */
+    public int archive(Instant createdBefore, int limit) {
+        var batch = jdbcClient.sql("""
+                select task_id, creation_date from task
+                where done = true and creation_date < :createdBefore
+                order by creation_date, task_id
+                limit :limit""")
+                .param("createdBefore", createdBefore.atOffset(ZoneOffset.UTC))
+                .param("limit", limit)
+                .query((rs, rowNum) -> new ArchivedTask(rs.getLong("task_id"), instant(rs, "creation_date")))
+                .list();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        var ids = batch.stream().map(ArchivedTask::id).toList();
+        if (databasePlatform.isPostgres()) {
+            createPartitions(batch);
+        }
+        var before = taskRepository.findStatesByIdIn(ids);
+        jdbcClient.sql("""
+                insert into task_history (task_id, description, creation_date, due_date, persona_id, persona_name,
+                                          archived_at)
+                select t.task_id, t.description, t.creation_date, t.due_date, t.persona_id,
+                       concat(p.apellido, ', ', p.nombre), :archivedAt
+                from task t join persona p on p.persona_id = t.persona_id
+                where t.task_id in (:ids)""")
+                .param("archivedAt", clock.instant().atOffset(ZoneOffset.UTC))
+                .param("ids", ids)
+                .update();
+        jdbcClient.sql("delete from task where task_id in (:ids)").param("ids", ids).update();
+        ids.forEach(searchIndex::remove);
+        // Archived tasks are no longer counted, same as the reconciliation job counts only the task table
+        statisticsService.tasksChanged(before, List.of());
+        eventPublisher.publishEvent(new TaskChangedEvent(ChangeKind.DELETED, Set.copyOf(ids)));
+        return batch.size();
+    }
+
+    /**
+     * Lists the grid rows of the tasks and the archived tasks together, newest first, starting right after
+     * {@code cursor} or, without a cursor, at {@code offset}.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<TaskRow> listWithArchived(@Nullable TaskCursor cursor, long offset, int limit) {
+        var seek = cursor != null;
+        var sql = ROWS_WITH_ARCHIVED.formatted(
+                seek ? "(t.creation_date, t.task_id) < (:creationDate, :id)" : "1 = 1",
+                seek ? "(h.creation_date, h.task_id) < (:creationDate, :id)" : "1 = 1");
+        var statement = jdbcClient.sql(sql)
+                .param("branchLimit", offset + limit)
+                .param("limit", limit)
+                .param("offset", offset);
+        if (seek) {
+            statement = statement.param("creationDate", cursor.creationDate().atOffset(ZoneOffset.UTC))
+                    .param("id", cursor.id());
+        }
+        return statement.query(TaskHistoryService::row).list();
+    }
+
+    // Partitions cover one calendar year (UTC) of creation dates each
+    private void createPartitions(List<ArchivedTask> batch) {
+        var years = new HashSet<Integer>();
+        batch.forEach(task -> years.add(task.creationDate().atOffset(ZoneOffset.UTC).getYear()));
+        for (var year : years) {
+            jdbcClient.sql("""
+                    CREATE TABLE IF NOT EXISTS task_history_%1$d PARTITION OF task_history
+                    FOR VALUES FROM ('%1$d-01-01 00:00:00+00') TO ('%2$d-01-01 00:00:00+00')"""
+                    .formatted(year, year + 1)).update();
+        }
+    }
+
+    private static TaskRow row(ResultSet rs, int rowNum) throws SQLException {
+        return new TaskRow(rs.getLong("task_id"), rs.getString("description"), instant(rs, "creation_date"),
+                rs.getObject("due_date", LocalDate.class), rs.getBoolean("done"), rs.getBoolean("overdue"),
+                rs.getString("persona_name"), rs.getBoolean("archived"));
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, OffsetDateTime.class).toInstant();
+    }
+
+    private record ArchivedTask(Long id, Instant creationDate) {
+    }
+}
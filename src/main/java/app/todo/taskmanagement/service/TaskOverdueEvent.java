@@ -0,0 +1,14 @@
+package app.todo.taskmanagement.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link TaskService#markOverdue} for the open tasks it has just flagged as overdue; each task is reported
+ * once per due date. A {@link TaskChangedEvent} for the same tasks is published as well.
+ */
+public record TaskOverdueEvent(Set<Long> taskIds) {
+
+    public TaskOverdueEvent {
+        taskIds = Set.copyOf(taskIds);
+    }
+}
@@ -0,0 +1,104 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.base.persistence.DatabasePlatform;
+import app.todo.taskmanagement.domain.Task;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over task descriptions, used for full-text search when the database has no full-text index
+ * of its own (i.e. everywhere but PostgreSQL). On PostgreSQL the index stays disabled and empty.
+ * <p>
+ * The index is rebuilt from the database on startup and kept up to date by {@link TaskService}. Changes are applied
+ * when the service makes them, so a task from a rolled back transaction can linger in the index; search results are
+ * always loaded from the database, so such entries are simply not returned.
+ * </p>
+ */
+@Component
+class TaskSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // term -> (task id -> occurrences of the term in the description)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    // task id -> terms, so that an old description can be removed without knowing its text
+    private final Map<Long, Map<String, Integer>> termsByTask = new HashMap<>();
+
+    private final boolean enabled;
+
+    TaskSearchIndex(DatabasePlatform databasePlatform) {
+        this.enabled = !databasePlatform.isPostgres();
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    synchronized void index(Task task) {
+        if (!enabled) {
+            return;
+        }
+        var id = Objects.requireNonNull(task.getId());
+        remove(id);
+        var terms = new HashMap<String, Integer>();
+        tokenize(task.getDescription()).forEach(term -> terms.merge(term, 1, Integer::sum));
+        terms.forEach((term, count) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, count));
+        termsByTask.put(id, terms);
+    }
+
+    synchronized void remove(Long taskId) {
+        var terms = termsByTask.remove(taskId);
+        if (terms == null) {
+            return;
+        }
+        terms.keySet().forEach(term -> {
+            var tasks = postings.get(term);
+            tasks.remove(taskId);
+            if (tasks.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+    }
+
+    synchronized void clear() {
+        postings.clear();
+        termsByTask.clear();
+    }
+
+    /**
+     * Returns the ids of the tasks whose description contains every word of the query, ranked by how often the words
+     * occur (newest task first on ties).
+     */
+    synchronized List<Long> search(String query, long offset, int limit) {
+        var terms = tokenize(query).distinct().toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        // Start from the rarest term so that the candidate set is as small as possible
+        var termPostings = terms.stream().map(term -> postings.getOrDefault(term, Map.of()))
+                .sorted(Comparator.comparingInt(Map::size)).toList();
+        var scores = new HashMap<Long, Integer>(termPostings.get(0));
+        for (var other : termPostings.subList(1, termPostings.size())) {
+            scores.keySet().retainAll(other.keySet());
+            scores.replaceAll((id, score) -> score + other.get(id));
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer> comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Long, Integer> comparingByKey().reversed()))
+                .skip(offset).limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    private static Stream<String> tokenize(String text) {
+        return Arrays.stream(NON_WORD.split(text.toLowerCase(Locale.ROOT))).filter(term -> !term.isEmpty());
+    }
+}
@@ -2,50 +2,294 @@ package app.todo.taskmanagement.service;
 
 import app.todo.taskmanagement.domain.Persona;
 import app.todo.taskmanagement.domain.Task;
+import app.todo.taskmanagement.domain.TaskFilter;
 import app.todo.taskmanagement.domain.TaskRepository;
+import app.todo.taskmanagement.domain.TaskRow;
+import app.todo.taskmanagement.domain.TaskState;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(propagation = Propagation.REQUIRES_NEW)
+@Timed("todo.service")
 public class TaskService {
 
+    // Keep in line with hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+
+    private static final int MAX_IDS_PER_UPDATE = 1000;
+
     private final TaskRepository taskRepository;
 
+    private final EntityManager entityManager;
+
+    private final TaskSearchIndex searchIndex;
+
+    private final TaskStatisticsService statisticsService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     private final Clock clock;
 
-    TaskService(TaskRepository taskRepository, Clock clock) {
+    TaskService(TaskRepository taskRepository, EntityManager entityManager, TaskSearchIndex searchIndex,
+            TaskStatisticsService statisticsService, ApplicationEventPublisher eventPublisher, Clock clock) {
         this.taskRepository = taskRepository;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.statisticsService = statisticsService;
+        this.eventPublisher = eventPublisher;
         this.clock = clock;
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    void buildSearchIndex() {
+        if (!searchIndex.isEnabled()) {
+            return;
+        }
+        searchIndex.clear();
+        Pageable pageable = PageRequest.of(0, 1000, Sort.by("id"));
+        while (true) {
+            var slice = taskRepository.findAllBy(pageable);
+            slice.forEach(searchIndex::index);
+            entityManager.clear();
+            if (!slice.hasNext()) {
+                break;
+            }
+            pageable = slice.nextPageable();
+        }
+    }
+
     public void createTask(String description, @Nullable LocalDate dueDate, Persona persona) {
+        var task = taskRepository.saveAndFlush(newTask(description, dueDate, persona));
+        searchIndex.index(task);
+        statisticsService.tasksChanged(List.of(), List.of(TaskState.of(task)));
+        publish(ChangeKind.CREATED, Set.of(Objects.requireNonNull(task.getId())));
+    }
+
+    /**
+     * Creates a task for the persona with the given id, e.g. one picked from {@link PersonaService#search}. The persona
+     * is only referenced, not loaded.
+     */
+    public void createTask(String description, @Nullable LocalDate dueDate, Long personaId) {
+        createTask(description, dueDate, entityManager.getReference(Persona.class, personaId));
+    }
+
+    /**
+     * Creates all the tasks in a single transaction. The inserts are sent to the database in JDBC batches and the
+     * persistence context is cleared after each batch, so loading thousands of tasks costs a few dozen round trips
+     * instead of one transaction per task.
+     */
+    public void createTasks(Collection<NewTask> newTasks) {
+        var ids = new HashSet<Long>();
+        var states = new ArrayList<TaskState>();
+        var pending = 0;
+        for (var newTask : newTasks) {
+            var task = taskRepository.save(newTask(newTask.description(), newTask.dueDate(), newTask.persona()));
+            searchIndex.index(task);
+            ids.add(Objects.requireNonNull(task.getId()));
+            states.add(TaskState.of(task));
+            if (++pending == BATCH_SIZE) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statisticsService.tasksChanged(List.of(), states);
+        publish(ChangeKind.CREATED, ids);
+    }
+
+    private Task newTask(String description, @Nullable LocalDate dueDate, Persona persona) {
         var task = new Task();
         task.setDescription(description);
         task.setCreationDate(clock.instant());
         task.setDueDate(dueDate);
         task.setDone(false);
+        task.setOverdue(false);
         task.setPersona(persona); // vínculo con la persona
-        taskRepository.saveAndFlush(task);
+        return task;
     }
 
     public void updateTask(Task task){
-        taskRepository.saveAndFlush(task);
+        var before = taskRepository.findStatesByIdIn(List.of(Objects.requireNonNull(task.getId())));
+        if (before.stream().anyMatch(state -> !Objects.equals(state.dueDate(), task.getDueDate()))) {
+            // Rescheduled: the overdue scanner flags it again if the new due date has passed too
+            task.setOverdue(false);
+        }
+        var saved = taskRepository.saveAndFlush(task);
+        searchIndex.index(saved);
+        statisticsService.tasksChanged(before, List.of(TaskState.of(saved)));
+        publish(ChangeKind.UPDATED, Set.of(Objects.requireNonNull(saved.getId())));
+    }
+
+    /**
+     * Loads the task with its persona, e.g. to edit it. Read from the primary database, not the replica: a task edited
+     * right after a change must not come back stale, or saving it would undo the change.
+     */
+    public Optional<Task> get(Long id) {
+        return taskRepository.findWithPersonaById(id);
+    }
+
+    /**
+     * Lists the grid rows of the given tasks, e.g. to refresh the rows of tasks that have changed. Read from the
+     * primary database, since the change has just been committed there and may not have reached the replica yet.
+     */
+    public List<TaskRow> listByIds(Collection<Long> ids) {
+        return taskRepository.findRowsByIdIn(ids);
     }
 
+    /**
+     * Sets the done flag of many tasks at once, with one {@code UPDATE ... WHERE task_id IN (...)} per flag value (and
+     * per thousand ids). Ids of tasks that no longer exist are ignored.
+     */
+    public void updateDone(Map<Long, Boolean> doneByTaskId) {
+        var before = new ArrayList<TaskState>();
+        var ids = List.copyOf(doneByTaskId.keySet());
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_UPDATE) {
+            before.addAll(taskRepository.findStatesByIdIn(ids.subList(from,
+                    Math.min(from + MAX_IDS_PER_UPDATE, ids.size()))));
+        }
+        var doneIds = new ArrayList<Long>();
+        var openIds = new ArrayList<Long>();
+        doneByTaskId.forEach((id, done) -> (done ? doneIds : openIds).add(id));
+        updateDone(true, doneIds);
+        updateDone(false, openIds);
+        statisticsService.tasksChanged(before,
+                before.stream().map(state -> state.withDone(doneByTaskId.get(state.id()))).toList());
+        publish(ChangeKind.UPDATED, doneByTaskId.keySet());
+    }
+
+    private void updateDone(boolean done, List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_UPDATE) {
+            taskRepository.updateDone(done, ids.subList(from, Math.min(from + MAX_IDS_PER_UPDATE, ids.size())));
+        }
+    }
+
+    /**
+     * Flags up to {@code limit} open tasks that are past their due date on {@code today} and have not been flagged yet,
+     * starting after the task {@code after} in due date order, and returns them. Publishes a {@link TaskOverdueEvent}
+     * for the flagged tasks. Meant to be called in a loop by {@link OverdueTaskScanner}, one transaction per batch.
+     */
+    public List<TaskState> markOverdue(LocalDate today, @Nullable TaskState after, int limit) {
+        var pageable = PageRequest.ofSize(limit);
+        var overdue = after == null || after.dueDate() == null
+                ? taskRepository.findNewlyOverdue(today, pageable)
+                : taskRepository.findNewlyOverdueAfter(today, after.dueDate(), after.id(), pageable);
+        if (!overdue.isEmpty()) {
+            var ids = overdue.stream().map(TaskState::id).collect(Collectors.toSet());
+            taskRepository.markOverdue(ids);
+            eventPublisher.publishEvent(new TaskOverdueEvent(ids));
+            publish(ChangeKind.UPDATED, ids);
+        }
+        return overdue;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
     public List<Task> list(Pageable pageable) {
-        return taskRepository.findAllBy(pageable).toList();
+        return taskRepository.findAllWithPersonaBy(pageable).toList();
+    }
+
+    /**
+     * Same page as {@link #list(Pageable)}, as grid rows instead of entities.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<TaskRow> listRows(Pageable pageable) {
+        return taskRepository.findRows(pageable);
+    }
+
+    /**
+     * Lists the grid rows of the tasks that match the filter, in the order of the pageable (newest first when it is
+     * unsorted). The filter and the sort are part of the query, so only the rows of the page are read.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<TaskRow> listRows(TaskFilter filter, Pageable pageable) {
+        return taskRepository.findRows(filter.toSpecification(), pageable);
+    }
+
+    /**
+     * Lists the grid rows of the tasks newest first, starting right after {@code cursor} (or at the newest task when it
+     * is {@code null}). Unlike {@link #listRows(Pageable)}, the cost does not grow with how far into the list the page
+     * is.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<TaskRow> listAfter(@Nullable TaskCursor cursor, int limit) {
+        var pageable = PageRequest.ofSize(limit);
+        if (cursor == null) {
+            return taskRepository.findNewestRows(pageable);
+        }
+        return taskRepository.findRowsOlderThan(cursor.creationDate(), cursor.id(), pageable);
     }
     
+    /**
+     * Full-text search over task descriptions. Every word of the query must occur in the description; results are
+     * ordered by relevance, so the sort of {@code pageable} is ignored. Uses the database's full-text index on
+     * PostgreSQL and an in-memory index elsewhere.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<TaskRow> search(String query, Pageable pageable) {
+        var ids = searchIndex.isEnabled()
+                ? searchIndex.search(query, pageable.getOffset(), pageable.getPageSize())
+                : taskRepository.searchIds(query, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        var ranks = new HashMap<Long, Integer>();
+        for (int i = 0; i < ids.size(); i++) {
+            ranks.put(ids.get(i), i);
+        }
+        var rows = new ArrayList<>(taskRepository.findRowsByIdIn(ids));
+        rows.sort(Comparator.comparing(row -> ranks.get(row.id())));
+        return rows;
+    }
+
     public void deleteTask(Long id) {
-        taskRepository.deleteById(id);
+        var before = taskRepository.findStatesByIdIn(List.of(id));
+        taskRepository.deleteAllByIdInBatch(List.of(id));
+        searchIndex.remove(id);
+        statisticsService.tasksChanged(before, List.of());
+        publish(ChangeKind.DELETED, Set.of(id));
+    }
+
+    /**
+     * Deletes up to {@code limit} tasks of the given persona with a single set-based delete, without loading them, and
+     * returns how many were deleted. Used to delete the tasks of a persona in short transactions; the task statistics
+     * are left alone since the persona's counters are deleted together with the persona.
+     */
+    public int deleteTasksOfPersona(Long personaId, int limit) {
+        var ids = taskRepository.findIdsByPersonaId(personaId, PageRequest.ofSize(limit));
+        if (!ids.isEmpty()) {
+            taskRepository.deleteAllByIdInBatch(ids);
+            ids.forEach(searchIndex::remove);
+        }
+        return ids.size();
+    }
+
+    private void publish(ChangeKind kind, Set<Long> taskIds) {
+        if (!taskIds.isEmpty()) {
+            eventPublisher.publishEvent(new TaskChangedEvent(kind, taskIds));
+        }
     }
 
 }
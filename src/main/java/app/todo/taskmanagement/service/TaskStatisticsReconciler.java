@@ -0,0 +1,41 @@
+package app.todo.taskmanagement.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recounts the task counters of {@link TaskStatisticsService} from the task table, on startup and once a week by
+ * default ({@code app.tasks.statistics-reconcile-cron}). This is a repair job: the counters are kept up to date by the
+ * services and rolled over to each new day without it. Personas are recounted in batches, each in its own short
+ * transaction, so task changes only ever wait for the counting of one batch.
+ */
+@Component
+public class TaskStatisticsReconciler {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final TaskStatisticsService statisticsService;
+
+    TaskStatisticsReconciler(TaskStatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    /**
+     * Recounts the counters of all personas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.tasks.statistics-reconcile-cron:0 0 4 * * SUN}")
+    public void reconcile() {
+        statisticsService.startRecount();
+        var last = 0L;
+        while (true) {
+            var batch = statisticsService.recount(last, BATCH_SIZE);
+            if (batch.size() < BATCH_SIZE) {
+                return;
+            }
+            last = batch.get(batch.size() - 1);
+        }
+    }
+}
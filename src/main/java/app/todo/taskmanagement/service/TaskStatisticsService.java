@@ -0,0 +1,180 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.PersonaTaskStatistics;
+import app.todo.taskmanagement.domain.TaskCounts;
+import app.todo.taskmanagement.domain.TaskState;
+import app.todo.taskmanagement.domain.TaskStatistics;
+import app.todo.taskmanagement.domain.TaskStatisticsRepository;
+import io.micrometer.core.annotation.Timed;
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Task counters per persona for the dashboard. {@link TaskService} and {@link PersonaService} report every change they
+ * make, and the change is added to the counters of the affected personas in the same transaction, so reading the
+ * dashboard costs one row per persona instead of a scan of the task table.
+ * <p>
+ * Whether an open task is overdue or due this week also depends on the date, which moves on without any task changing.
+ * The counters are kept as of one day, and every hour ({@code app.tasks.statistics-rollover-cron}) they are rolled
+ * over to the new day once it has come, which only reads the open tasks due around the two days. On top of that,
+ * {@link TaskStatisticsReconciler} recounts them from the task table on startup and once a week, which repairs any
+ * drift, e.g. from rows changed outside the services or a change that committed while a rollover was running.
+ * </p>
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@Timed("todo.service")
+public class TaskStatisticsService {
+
+    // Due this week: due today or within the following six days
+    private static final int DUE_SOON_DAYS = 7;
+
+    private final TaskStatisticsRepository statisticsRepository;
+
+    private final Clock clock;
+
+    // The day the overdue and due this week counters are counted as of. Changes are counted as of the same day, so
+    // that a rollover moves them along with the rest.
+    private volatile @Nullable LocalDate countedDay;
+
+    TaskStatisticsService(TaskStatisticsRepository statisticsRepository, Clock clock) {
+        this.statisticsRepository = statisticsRepository;
+        this.clock = clock;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public TaskCounts totals() {
+        return statisticsRepository.sumCounts();
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<PersonaTaskStatistics> listByPersona(Pageable pageable) {
+        return statisticsRepository.findAllWithPersona(pageable);
+    }
+
+    /**
+     * Rolls the counters over to today, if they are still counted as of an earlier day.
+     */
+    @Scheduled(cron = "${app.tasks.statistics-rollover-cron:0 0 * * * *}")
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void rollOver() {
+        rollOver(LocalDate.now(clock));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    void rollOver(LocalDate today) {
+        var from = countedDay;
+        if (from == null || !from.isBefore(today)) {
+            return;
+        }
+        // Applied as increments in persona order, like any task change, so no counter row is locked for longer than
+        // its own update
+        var deltas = statisticsRepository.countRollOver(from, from.plusDays(DUE_SOON_DAYS), today,
+                today.plusDays(DUE_SOON_DAYS));
+        deltas.forEach(statistics -> {
+            var delta = statistics.getCounts();
+            if (!delta.equals(TaskCounts.ZERO)) {
+                statisticsRepository.addCounts(statistics.getPersonaId(), 0, 0, delta.overdue(),
+                        delta.dueThisWeek());
+            }
+        });
+        countedDay = today;
+    }
+
+    /**
+     * Starts a recount by {@link TaskStatisticsReconciler}: adds and removes counter rows for personas created or
+     * deleted outside the services, and from now on counts as of today.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void startRecount() {
+        statisticsRepository.deleteOrphans();
+        statisticsRepository.insertMissing();
+        countedDay = LocalDate.now(clock);
+    }
+
+    /**
+     * Recounts the counters of up to {@code limit} personas from the task table, starting after the persona
+     * {@code afterPersonaId} in id order, and returns their ids. Meant to be called in a loop by
+     * {@link TaskStatisticsReconciler}, one transaction per batch, so that only the counter rows of one batch are
+     * locked while its tasks are counted.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<Long> recount(long afterPersonaId, int limit) {
+        var day = countedDay();
+        // Locked before counting: a task change that commits after the count has its addCounts applied on top of the
+        // recount, instead of the recount overwriting it
+        var rows = statisticsRepository.findNextForUpdate(afterPersonaId, PageRequest.ofSize(limit));
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        var personaIds = rows.stream().map(TaskStatistics::getPersonaId).toList();
+        var counts = statisticsRepository.countByPersona(day, day.plusDays(DUE_SOON_DAYS), personaIds).stream()
+                .collect(Collectors.toMap(TaskStatistics::getPersonaId, TaskStatistics::getCounts));
+        // Only the rows whose counters actually changed are written back
+        rows.forEach(statistics -> statistics
+                .setCounts(counts.getOrDefault(statistics.getPersonaId(), TaskCounts.ZERO)));
+        return personaIds;
+    }
+
+    void personaCreated(Long personaId) {
+        statisticsRepository.insertEmpty(personaId);
+    }
+
+    void personasCreated(Collection<Long> personaIds) {
+        statisticsRepository.insertEmptyFor(personaIds);
+    }
+
+    void personaDeleted(Long personaId) {
+        statisticsRepository.deleteAllByIdInBatch(List.of(personaId));
+    }
+
+    /**
+     * Moves the given tasks from where they were counted {@code before} the change to where they count {@code after}
+     * it. New tasks only have an after state, deleted tasks only a before state.
+     */
+    void tasksChanged(Collection<TaskState> before, Collection<TaskState> after) {
+        var today = countedDay();
+        // Sorted by persona so that concurrent transactions lock the counter rows in the same order
+        var deltas = new TreeMap<Long, TaskCounts>();
+        before.forEach(state -> deltas.merge(state.personaId(), countOf(state, today).negate(), TaskCounts::plus));
+        after.forEach(state -> deltas.merge(state.personaId(), countOf(state, today), TaskCounts::plus));
+        deltas.forEach((personaId, delta) -> {
+            if (!delta.equals(TaskCounts.ZERO)) {
+                statisticsRepository.addCounts(personaId, delta.open(), delta.done(), delta.overdue(),
+                        delta.dueThisWeek());
+            }
+        });
+    }
+
+    // Until the first recount, the counters are taken to be as of today
+    private LocalDate countedDay() {
+        var day = countedDay;
+        return day != null ? day : LocalDate.now(clock);
+    }
+
+    private static TaskCounts countOf(TaskState state, LocalDate today) {
+        if (Boolean.TRUE.equals(state.done())) {
+            return new TaskCounts(0, 1, 0, 0);
+        }
+        var dueDate = state.dueDate();
+        if (dueDate != null && dueDate.isBefore(today)) {
+            return new TaskCounts(1, 0, 1, 0);
+        }
+        if (dueDate != null && dueDate.isBefore(today.plusDays(DUE_SOON_DAYS))) {
+            return new TaskCounts(1, 0, 0, 1);
+        }
+        return new TaskCounts(1, 0, 0, 0);
+    }
+}
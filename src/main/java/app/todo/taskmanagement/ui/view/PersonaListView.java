@@ -1,22 +1,41 @@
 package app.todo.taskmanagement.ui.view;
 
 import app.todo.base.ui.component.ViewToolbar;
+import app.todo.base.ui.metrics.GridFetchMetrics;
 import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.PersonaRow;
+import app.todo.taskmanagement.service.ChangeKind;
+import app.todo.taskmanagement.service.PersonaChangedEvent;
+import app.todo.taskmanagement.service.PersonaImportResult;
+import app.todo.taskmanagement.service.PersonaImportResult.Reject;
+import app.todo.taskmanagement.service.PersonaImporter;
 import app.todo.taskmanagement.service.PersonaService;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
 import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.dataview.GridLazyDataView;
 import com.vaadin.flow.component.html.Main;
+import com.vaadin.flow.component.html.Paragraph;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.textfield.IntegerField;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.upload.Upload;
+import com.vaadin.flow.component.upload.receivers.FileBuffer;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.theme.lumo.LumoUtility;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.security.PermitAll;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
@@ -24,11 +43,17 @@ import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.component.textfield.IntegerField;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
-import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static com.vaadin.flow.spring.data.VaadinSpringDataHelpers.toSpringPageRequest;
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
 
 @Route("persona-list")
 @PageTitle("Personas")
@@ -36,17 +61,37 @@ import static com.vaadin.flow.spring.data.VaadinSpringDataHelpers.toSpringPageRe
 @PermitAll
 public class PersonaListView extends Main {
 
+    // Con más personas cambiadas, recargar lo visible es más barato que refrescar fila por fila
+    private static final int MAX_ITEMS_TO_REFRESH = 100;
+
+    private static final String ACTIONS_TEMPLATE = """
+            <vaadin-horizontal-layout theme="spacing">
+                <vaadin-button theme="primary small" @click="${edit}">Editar</vaadin-button>
+                <vaadin-button theme="error small" @click="${remove}">Eliminar</vaadin-button>
+            </vaadin-horizontal-layout>
+            """;
+
     private final PersonaService personaService;
+    private final PersonaImporter personaImporter;
+    private final AsyncTaskExecutor taskExecutor;
 
     private final IntegerField dniField;
     private final TextField apellidoField;
     private final TextField nombreField;
     private final IntegerField edadField;
     private final Button createBtn;
-    private final Grid<Persona> personaGrid;
-
-    public PersonaListView(PersonaService personaService) {
+    private final Upload importUpload;
+    private final Grid<PersonaRow> personaGrid;
+    private final GridLazyDataView<PersonaRow> personaDataView;
+    private final ConfirmDialog deleteDialog;
+    private @Nullable Long personaToDelete;
+
+    public PersonaListView(PersonaService personaService, PersonaImporter personaImporter,
+            @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor taskExecutor,
+            TaskManagementBroadcaster broadcaster, MeterRegistry meterRegistry) {
         this.personaService = personaService;
+        this.personaImporter = personaImporter;
+        this.taskExecutor = taskExecutor;
 
         dniField = new IntegerField("DNI");
         dniField.setPlaceholder("12345678");
@@ -70,51 +115,37 @@ public class PersonaListView extends Main {
         createBtn = new Button("Agregar Persona", event -> createPersona());
         createBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
 
-        personaGrid = new Grid<>(Persona.class, false);
-        personaGrid.setItems(query -> personaService.list(toSpringPageRequest(query)).stream());
-
-        personaGrid.addColumn(Persona::getDni).setHeader("DNI");
-        personaGrid.addColumn(Persona::getApellido).setHeader("Apellido");
-        personaGrid.addColumn(Persona::getNombre).setHeader("Nombre");
-        personaGrid.addColumn(p -> Optional.ofNullable(p.getEdad()).map(Object::toString).orElse("N/A"))
+        // El archivo se guarda en un temporal mientras se sube y se importa desde ahí, sin cargarlo en memoria
+        var importBuffer = new FileBuffer();
+        importUpload = new Upload(importBuffer);
+        importUpload.setAcceptedFileTypes("text/csv", ".csv");
+        importUpload.setUploadButton(new Button("Importar CSV", VaadinIcon.UPLOAD.create()));
+        importUpload.setDropAllowed(false);
+        importUpload.addSucceededListener(event -> importPersonas(importBuffer.getFileData().getFile()));
+
+        personaGrid = new Grid<>();
+        personaDataView = personaGrid.setItems(
+                new GridFetchMetrics(meterRegistry, "personas").timed(this::fetchPersonas));
+        personaDataView.setIdentifierProvider(PersonaRow::id);
+
+        personaGrid.addColumn(PersonaRow::dni).setHeader("DNI");
+        personaGrid.addColumn(PersonaRow::apellido).setHeader("Apellido");
+        personaGrid.addColumn(PersonaRow::nombre).setHeader("Nombre");
+        personaGrid.addColumn(p -> Optional.ofNullable(p.edad()).map(Object::toString).orElse("N/A"))
                 .setHeader("Edad");
 
-        // Columna con botón Eliminar
-        personaGrid.addComponentColumn(persona -> {
-            Button editButton = new Button("Editar", e -> openEditPersonaDialog(persona));
-            editButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY, ButtonVariant.LUMO_SMALL);
-            /*
-            Button deleteButton = new Button("Eliminar", click -> {
-                personaService.deletePersona(persona.getId());
-                personaGrid.getDataProvider().refreshAll();
-                Notification.show("Persona eliminada", 3000, Notification.Position.BOTTOM_END)
-                        .addThemeVariants(NotificationVariant.LUMO_CONTRAST);
-            });
-            deleteButton.addThemeVariants(ButtonVariant.LUMO_ERROR, ButtonVariant.LUMO_SMALL);
-            */	
-            Button deleteButton = new Button("Eliminar");
-            deleteButton.addThemeVariants(ButtonVariant.LUMO_ERROR, ButtonVariant.LUMO_SMALL);
-            deleteButton.addClickListener(e -> {
-                ConfirmDialog dialog = new ConfirmDialog();
-                dialog.setHeader("¿Estás seguro?");
-                dialog.setText("Al eliminar esta persona, también se eliminarán todas las tareas que tenga asignadas.");
-                dialog.setCancelable(true);
-                dialog.setConfirmText("Sí, eliminar");
-                dialog.setCancelText("Cancelar");
-
-                dialog.addConfirmListener(event -> {
-                    personaService.deletePersona(persona.getId());
-                    personaGrid.getDataProvider().refreshAll();
-                    Notification.show("Persona eliminada", 3000, Notification.Position.BOTTOM_END)
-                            .addThemeVariants(NotificationVariant.LUMO_ERROR);
-                });
-
-                dialog.open();
-            });
-            HorizontalLayout actionsLayout = new HorizontalLayout(editButton, deleteButton);
-            actionsLayout.setSpacing(true);
-            return actionsLayout;
-        }).setHeader("Acciones");
+        // Un único diálogo de confirmación para toda la grilla, en lugar de uno por fila
+        deleteDialog = new ConfirmDialog();
+        deleteDialog.setHeader("¿Estás seguro?");
+        deleteDialog.setText("Al eliminar esta persona, también se eliminarán todas las tareas que tenga asignadas.");
+        deleteDialog.setCancelable(true);
+        deleteDialog.setConfirmText("Sí, eliminar");
+        deleteDialog.setCancelText("Cancelar");
+        deleteDialog.addConfirmListener(event -> deletePersona());
+
+        // Columna con botones Editar y Eliminar, dibujados en el navegador (sin componentes por fila)
+        personaGrid.addColumn(LitRenderer.<PersonaRow> of(ACTIONS_TEMPLATE).withFunction("edit", this::editPersona)
+                .withFunction("remove", this::confirmDelete)).setHeader("Acciones");
         
         personaGrid.setSizeFull();
 
@@ -127,8 +158,30 @@ public class PersonaListView extends Main {
                 LumoUtility.Gap.SMALL
         );
 
-        add(new ViewToolbar("Personas", ViewToolbar.group(dniField, apellidoField, nombreField, edadField, createBtn)));
+        add(new ViewToolbar("Personas", ViewToolbar.group(dniField, apellidoField, nombreField, edadField, createBtn),
+                ViewToolbar.group(importUpload)));
         add(personaGrid);
+
+        addAttachListener(event -> {
+            var ui = event.getUI();
+            var registration = broadcaster.addPersonaListener(changed -> ui.access(() -> onPersonaChanged(changed)));
+            addDetachListener(detachEvent -> {
+                detachEvent.unregisterListener();
+                registration.remove();
+            });
+        });
+    }
+
+    private void onPersonaChanged(PersonaChangedEvent event) {
+        if (event.kind() == ChangeKind.UPDATED && event.personaIds().size() <= MAX_ITEMS_TO_REFRESH) {
+            personaService.listRowsByIds(event.personaIds()).forEach(personaDataView::refreshItem);
+        } else {
+            personaGrid.getDataProvider().refreshAll();
+        }
+    }
+
+    private Stream<PersonaRow> fetchPersonas(Query<PersonaRow, Void> query) {
+        return personaService.listRows(toSpringPageRequest(query)).stream();
     }
 
     private void createPersona() {
@@ -146,7 +199,6 @@ public class PersonaListView extends Main {
                     edadField.getValue()
             );
 
-            personaGrid.getDataProvider().refreshAll();
             clearForm();
 
             Notification.show("Persona agregada", 3000, Notification.Position.BOTTOM_END)
@@ -157,6 +209,56 @@ public class PersonaListView extends Main {
         }
     }
 
+    private void importPersonas(File file) {
+        // La importación corre fuera del lock de la sesión; el resultado se muestra al terminar (con @Push)
+        var ui = UI.getCurrent();
+        importUpload.setEnabled(false);
+        Notification.show("Importando personas…", 3000, Notification.Position.BOTTOM_END);
+        CompletableFuture.supplyAsync(() -> {
+            try (var in = Files.newInputStream(file.toPath())) {
+                return personaImporter.importCsv(in);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                file.delete();
+            }
+        }, taskExecutor).whenComplete((result, failure) -> ui.access(() -> {
+            importUpload.setEnabled(true);
+            importUpload.clearFileList();
+            if (failure != null) {
+                // La excepción llega envuelta en una CompletionException
+                var cause = Optional.ofNullable(failure.getCause()).orElse(failure);
+                Notification.show("Error al importar: " + cause.getMessage(), 5000, Notification.Position.BOTTOM_END)
+                        .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            } else {
+                showImportResult(result);
+            }
+        }));
+    }
+
+    private void showImportResult(PersonaImportResult result) {
+        var summary = "%d personas agregadas, %d actualizadas, %d filas rechazadas".formatted(result.created(),
+                result.updated(), result.rejected());
+        if (result.rejected() == 0) {
+            Notification.show(summary, 5000, Notification.Position.BOTTOM_END)
+                    .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+            return;
+        }
+        var rejectsGrid = new Grid<Reject>();
+        rejectsGrid.addColumn(Reject::line).setHeader("Línea").setAutoWidth(true).setFlexGrow(0);
+        rejectsGrid.addColumn(Reject::reason).setHeader("Motivo");
+        rejectsGrid.setItems(result.rejects());
+
+        var dialog = new Dialog();
+        dialog.setHeaderTitle("Importación terminada");
+        dialog.setWidth("600px");
+        var details = result.rejected() > result.rejects().size()
+                ? summary + " (se muestran las primeras " + result.rejects().size() + ")" : summary;
+        dialog.add(new Paragraph(details), rejectsGrid);
+        dialog.getFooter().add(new Button("Cerrar", e -> dialog.close()));
+        dialog.open();
+    }
+
     private void clearForm() {
         dniField.clear();
         apellidoField.clear();
@@ -164,6 +266,27 @@ public class PersonaListView extends Main {
         edadField.clear();
     }
     
+    private void confirmDelete(PersonaRow row) {
+        personaToDelete = row.id();
+        deleteDialog.open();
+    }
+
+    private void deletePersona() {
+        if (personaToDelete == null) {
+            return;
+        }
+        personaService.deletePersona(personaToDelete);
+        personaToDelete = null;
+        Notification.show("Persona eliminada", 3000, Notification.Position.BOTTOM_END)
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
+    }
+
+    private void editPersona(PersonaRow row) {
+        // La grilla sólo tiene filas; la entidad se carga para el diálogo
+        personaService.get(row.id()).ifPresentOrElse(this::openEditPersonaDialog,
+                () -> Notification.show("La persona ya no existe", 3000, Notification.Position.BOTTOM_END));
+    }
+
     private void openEditPersonaDialog(Persona persona) {
         Dialog dialog = new Dialog();
         dialog.setWidth("400px");
@@ -196,7 +319,6 @@ public class PersonaListView extends Main {
             persona.setEdad(edadField.getValue());
 
             personaService.updatePersona(persona);
-            personaGrid.getDataProvider().refreshAll();
             Notification.show("Persona actualizada", 3000, Notification.Position.BOTTOM_END);
             dialog.close();
         });
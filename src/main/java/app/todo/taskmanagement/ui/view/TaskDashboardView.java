@@ -0,0 +1,101 @@
+package app.todo.taskmanagement.ui.view;
+
+import app.todo.base.ui.component.ViewToolbar;
+import app.todo.base.ui.metrics.GridFetchMetrics;
+import app.todo.taskmanagement.domain.PersonaTaskStatistics;
+import app.todo.taskmanagement.domain.TaskCounts;
+import app.todo.taskmanagement.service.TaskStatisticsService;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.Main;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.router.Menu;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
+import com.vaadin.flow.theme.lumo.LumoUtility;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.security.PermitAll;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.vaadin.flow.spring.data.VaadinSpringDataHelpers.toSpringPageRequest;
+
+@Route("task-dashboard")
+@PageTitle("Resumen")
+@Menu(order = 2, icon = "vaadin:dashboard", title = "Resumen")
+@PermitAll
+public class TaskDashboardView extends Main {
+
+    private final TaskStatisticsService statisticsService;
+
+    private final Span openTotal = new Span();
+    private final Span doneTotal = new Span();
+    private final Span overdueTotal = new Span();
+    private final Span dueThisWeekTotal = new Span();
+    private final Grid<PersonaTaskStatistics> statisticsGrid;
+
+    public TaskDashboardView(TaskStatisticsService statisticsService, TaskManagementBroadcaster broadcaster,
+            MeterRegistry meterRegistry) {
+        this.statisticsService = statisticsService;
+
+        var totals = new Div(card("Abiertas", openTotal), card("Hechas", doneTotal), card("Vencidas", overdueTotal),
+                card("Vencen esta semana", dueThisWeekTotal));
+        totals.addClassNames(LumoUtility.Display.FLEX, LumoUtility.FlexWrap.WRAP, LumoUtility.Gap.MEDIUM);
+
+        statisticsGrid = new Grid<>();
+        statisticsGrid.setItems(new GridFetchMetrics(meterRegistry, "task-statistics").timed(this::fetchStatistics));
+        statisticsGrid.addColumn(row -> row.apellido() + ", " + row.nombre()).setHeader("Persona");
+        statisticsGrid.addColumn(PersonaTaskStatistics::open).setHeader("Abiertas");
+        statisticsGrid.addColumn(PersonaTaskStatistics::done).setHeader("Hechas");
+        statisticsGrid.addColumn(PersonaTaskStatistics::overdue).setHeader("Vencidas");
+        statisticsGrid.addColumn(PersonaTaskStatistics::dueThisWeek).setHeader("Vencen esta semana");
+        statisticsGrid.setSizeFull();
+
+        setSizeFull();
+        addClassNames(LumoUtility.BoxSizing.BORDER, LumoUtility.Display.FLEX, LumoUtility.FlexDirection.COLUMN,
+                LumoUtility.Padding.MEDIUM, LumoUtility.Gap.SMALL);
+
+        add(new ViewToolbar("Resumen"));
+        add(totals);
+        add(statisticsGrid);
+        refresh();
+
+        addAttachListener(event -> {
+            var ui = event.getUI();
+            var registrations = List.of(
+                    broadcaster.addTaskListener(changed -> ui.access(this::refresh)),
+                    broadcaster.addPersonaListener(changed -> ui.access(this::refresh)));
+            addDetachListener(detachEvent -> {
+                detachEvent.unregisterListener();
+                registrations.forEach(Registration::remove);
+            });
+        });
+    }
+
+    private static Div card(String title, Span value) {
+        var label = new Span(title);
+        label.addClassNames(LumoUtility.FontSize.SMALL, LumoUtility.TextColor.SECONDARY);
+        value.addClassNames(LumoUtility.FontSize.XXLARGE, LumoUtility.FontWeight.SEMIBOLD);
+        var card = new Div(label, value);
+        card.addClassNames(LumoUtility.Display.FLEX, LumoUtility.FlexDirection.COLUMN, LumoUtility.Padding.MEDIUM,
+                LumoUtility.Border.ALL, LumoUtility.BorderRadius.MEDIUM, LumoUtility.BorderColor.CONTRAST_10);
+        return card;
+    }
+
+    private void refresh() {
+        // Both read the per-persona counters only, never the task table
+        TaskCounts counts = statisticsService.totals();
+        openTotal.setText(String.valueOf(counts.open()));
+        doneTotal.setText(String.valueOf(counts.done()));
+        overdueTotal.setText(String.valueOf(counts.overdue()));
+        dueThisWeekTotal.setText(String.valueOf(counts.dueThisWeek()));
+        statisticsGrid.getDataProvider().refreshAll();
+    }
+
+    private Stream<PersonaTaskStatistics> fetchStatistics(Query<PersonaTaskStatistics, Void> query) {
+        return statisticsService.listByPersona(toSpringPageRequest(query)).stream();
+    }
+}
@@ -1,10 +1,21 @@
 package app.todo.taskmanagement.ui.view;
 
 import app.todo.base.ui.component.ViewToolbar;
+import app.todo.base.ui.metrics.GridFetchMetrics;
 import app.todo.taskmanagement.domain.Task;
-import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.PersonaRow;
+import app.todo.taskmanagement.domain.TaskFilter;
+import app.todo.taskmanagement.domain.TaskRow;
+import app.todo.taskmanagement.service.ChangeKind;
+import app.todo.taskmanagement.service.PersonaChangedEvent;
 import app.todo.taskmanagement.service.PersonaService;
+import app.todo.taskmanagement.service.TaskCursor;
+import app.todo.taskmanagement.service.TaskDoneWriteBehind;
+import app.todo.taskmanagement.service.TaskExportService;
+import app.todo.taskmanagement.service.TaskHistoryService;
+import app.todo.taskmanagement.service.TaskChangedEvent;
 import app.todo.taskmanagement.service.TaskService;
+import com.vaadin.flow.component.HasEnabled;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.checkbox.Checkbox;
@@ -12,26 +23,41 @@ import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.datepicker.DatePicker;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.dataview.GridLazyDataView;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.Main;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.select.Select;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.renderer.LitRenderer;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.StreamResourceWriter;
+import com.vaadin.flow.shared.Registration;
 import com.vaadin.flow.theme.lumo.LumoUtility;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.security.PermitAll;
 
 import java.time.Clock;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 
 import static com.vaadin.flow.spring.data.VaadinSpringDataHelpers.toSpringPageRequest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
 @Route("task-list")
@@ -40,18 +66,59 @@ import org.springframework.data.domain.Sort;
 @PermitAll // When security is enabled, allow all authenticated users
 public class TaskListView extends Main {
 
+    // Above this many changed tasks, reloading the visible range is cheaper than refreshing rows one by one
+    private static final int MAX_ITEMS_TO_REFRESH = 100;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "creationDate", "id");
+
+    private static final String ALL = "Todas";
+    private static final String OPEN = "Abiertas";
+    private static final String DONE = "Hechas";
+
+    private static final String DONE_TEMPLATE = """
+            <vaadin-checkbox .checked="${item.done}" ?disabled="${item.archived}"
+                @change="${e => toggleDone(e.target.checked)}"></vaadin-checkbox>
+            """;
+
+    private static final String ACTIONS_TEMPLATE = """
+            <vaadin-horizontal-layout theme="spacing" ?hidden="${item.archived}">
+                <vaadin-button theme="primary small" @click="${edit}">Editar</vaadin-button>
+                <vaadin-button theme="error small" @click="${remove}">Eliminar</vaadin-button>
+            </vaadin-horizontal-layout>
+            """;
+
     private final TaskService taskService;
     private final PersonaService personaService;
+    private final TaskDoneWriteBehind taskDoneWriteBehind;
+    private final TaskHistoryService taskHistoryService;
     
     final TextField description;
+    final TextField searchField;
+    final Checkbox includeArchived;
     final DatePicker dueDate;
     final Button createBtn;
-    final Grid<Task> taskGrid;
-    final ComboBox<Persona> personaComboBox;
+    final Grid<TaskRow> taskGrid;
+    final GridLazyDataView<TaskRow> taskDataView;
+    final ComboBox<PersonaRow> personaComboBox;
+    final Select<String> statusFilter;
+    final ComboBox<PersonaRow> personaFilter;
+    final DatePicker dueFromFilter;
+    final DatePicker dueToFilter;
+    final Checkbox overdueFilter;
+    private final List<Grid.Column<TaskRow>> sortableColumns;
+
+    // The grid asks for pages in order while scrolling, so the last task of each page is remembered by the offset of
+    // the page that follows it. That page can then seek from the cursor instead of making the database skip rows.
+    private final Map<Integer, TaskCursor> cursors = new HashMap<>();
     
-    public TaskListView(TaskService taskService, PersonaService personaService, Clock clock) {
+    public TaskListView(TaskService taskService, PersonaService personaService,
+            TaskDoneWriteBehind taskDoneWriteBehind, TaskExportService taskExportService,
+            TaskHistoryService taskHistoryService, TaskManagementBroadcaster broadcaster, MeterRegistry meterRegistry,
+            Clock clock) {
         this.taskService = taskService;
         this.personaService = personaService;
+        this.taskDoneWriteBehind = taskDoneWriteBehind;
+        this.taskHistoryService = taskHistoryService;
         
         description = new TextField();
         description.setPlaceholder("What do you want to do?");
@@ -59,6 +126,22 @@ public class TaskListView extends Main {
         description.setMaxLength(Task.DESCRIPTION_MAX_LENGTH);
         description.setMinWidth("20em");
 
+        searchField = new TextField();
+        searchField.setPlaceholder("Buscar tareas");
+        searchField.setAriaLabel("Buscar tareas");
+        searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
+        searchField.setClearButtonVisible(true);
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
+        searchField.addValueChangeListener(event -> {
+            updateSearchMode();
+            refreshGrid();
+        });
+
+        // The history is only read while this is checked; searches, filters and sorting only cover the tasks that are
+        // not archived
+        includeArchived = new Checkbox("Incluir archivadas");
+        includeArchived.addValueChangeListener(event -> refreshGrid());
+
         dueDate = new DatePicker();
         dueDate.setPlaceholder("Due date");
         dueDate.setAriaLabel("Due date");
@@ -69,65 +152,184 @@ public class TaskListView extends Main {
 
         //personaComboBox = new ComboBox<>("Asignar a");
         personaComboBox = new ComboBox<>();
-        personaComboBox.setItemLabelGenerator(p -> p.getApellido() + ", " + p.getNombre());
-        personaComboBox.setItems(personaService.listAll());
+        setPersonaItems(personaComboBox);
         personaComboBox.setPlaceholder("Seleccionar persona");
         personaComboBox.setMinWidth("15em");
         
+        statusFilter = new Select<>();
+        statusFilter.setItems(ALL, OPEN, DONE);
+        statusFilter.setValue(ALL);
+        statusFilter.setAriaLabel("Estado");
+        statusFilter.addValueChangeListener(event -> refreshGrid());
+
+        personaFilter = new ComboBox<>();
+        setPersonaItems(personaFilter);
+        personaFilter.setPlaceholder("Todas las personas");
+        personaFilter.setClearButtonVisible(true);
+        personaFilter.addValueChangeListener(event -> refreshGrid());
+
+        dueFromFilter = new DatePicker();
+        dueFromFilter.setPlaceholder("Vence desde");
+        dueFromFilter.setAriaLabel("Vence desde");
+        dueFromFilter.setClearButtonVisible(true);
+        dueFromFilter.addValueChangeListener(event -> refreshGrid());
+
+        dueToFilter = new DatePicker();
+        dueToFilter.setPlaceholder("Vence hasta");
+        dueToFilter.setAriaLabel("Vence hasta");
+        dueToFilter.setClearButtonVisible(true);
+        dueToFilter.addValueChangeListener(event -> refreshGrid());
+
+        overdueFilter = new Checkbox("Solo vencidas");
+        overdueFilter.addValueChangeListener(event -> refreshGrid());
+
         var dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).withZone(clock.getZone())
                 .withLocale(getLocale());
         var dateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(getLocale());
 
         taskGrid = new Grid<>();
         //taskGrid.setItems(query -> taskService.list(toSpringPageRequest(query)).stream());
-        taskGrid.setItems(query -> {
-            var pageable = toSpringPageRequest(query).withSort(Sort.by(Sort.Direction.DESC, "creationDate"));
-            return taskService.list(pageable).stream();
-        });
-        taskGrid.addComponentColumn(task -> {
-                        Checkbox checkbox = new Checkbox(task.isDone());
-                        checkbox.addValueChangeListener(event -> {
-                                task.setDone(event.getValue());
-                                taskService.updateTask(task); // Make sure you have this method to persist
-                                // changes
-                        });
-                        return checkbox;
-                }).setHeader("Done");
-
-        taskGrid.addColumn(Task::getDescription).setHeader("Description");
-        taskGrid.addColumn(task -> Optional.ofNullable(task.getDueDate()).map(dateFormatter::format).orElse("Never"))
-                .setHeader("Due Date");
-        taskGrid.addColumn(task -> {
-            Persona p = task.getPersona();
-            return p != null ? p.getApellido() + ", " + p.getNombre() : "-";
-        }).setHeader("Asignado a");
-        taskGrid.addColumn(task -> dateTimeFormatter.format(task.getCreationDate())).setHeader("Creation Date");
-        
-        taskGrid.addComponentColumn(task -> {
-            Button editButton = new Button("Editar", e -> openEditTaskDialog(task));
-            editButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY, ButtonVariant.LUMO_SMALL);
-
-            Button deleteButton = new Button("Eliminar", click -> {
-                taskService.deleteTask(task.getId());
-                taskGrid.getDataProvider().refreshAll();
-                Notification.show("Tarea eliminada", 3000, Notification.Position.BOTTOM_END)
-                        .addThemeVariants(NotificationVariant.LUMO_CONTRAST);
-            });
-            deleteButton.addThemeVariants(ButtonVariant.LUMO_ERROR, ButtonVariant.LUMO_SMALL);
+        taskDataView = taskGrid.setItems(new GridFetchMetrics(meterRegistry, "tasks").timed(this::fetchTasks));
+        // Rows are immutable values, so a changed row is a new object: match rows by task id instead of by equality
+        taskDataView.setIdentifierProvider(TaskRow::id);
+        // The checkbox and buttons are rendered in the browser from the row values; there are no server-side components
+        // per row, only one handler per column
+        taskGrid.addColumn(LitRenderer.<TaskRow> of(DONE_TEMPLATE).withProperty("done", TaskRow::done)
+                .withProperty("archived", TaskRow::archived)
+                .withFunction("toggleDone", (row, args) -> setDone(row, args.getBoolean(0)))).setHeader("Done")
+                .setSortProperty("done");
 
-            HorizontalLayout actionsLayout = new HorizontalLayout(editButton, deleteButton);
-            actionsLayout.setSpacing(true);
-            return actionsLayout;
-        }).setHeader("Acciones");
+        // Sorting is done by the database, on the properties named here (see TaskRepositoryCustom.findRows)
+        taskGrid.addColumn(TaskRow::description).setHeader("Description").setSortProperty("description");
+        taskGrid.addColumn(row -> Optional.ofNullable(row.dueDate()).map(dateFormatter::format).orElse("Never"))
+                .setHeader("Due Date").setSortProperty("dueDate");
+        taskGrid.addColumn(TaskRow::personaName).setHeader("Asignado a").setSortProperty("personaName");
+        taskGrid.addColumn(row -> dateTimeFormatter.format(row.creationDate())).setHeader("Creation Date")
+                .setSortProperty("creationDate");
+        
+        taskGrid.addColumn(LitRenderer.<TaskRow> of(ACTIONS_TEMPLATE).withProperty("archived", TaskRow::archived)
+                .withFunction("edit", this::editTask)
+                .withFunction("remove", this::deleteTask)).setHeader("Acciones");
         
+        sortableColumns = taskGrid.getColumns().stream().filter(Grid.Column::isSortable).toList();
+
+        taskGrid.setPartNameGenerator(row -> row.archived() ? "archived"
+                : !row.done() && row.overdue() ? "overdue" : null);
         taskGrid.setSizeFull();
 
         setSizeFull();
         addClassNames(LumoUtility.BoxSizing.BORDER, LumoUtility.Display.FLEX, LumoUtility.FlexDirection.COLUMN,
                 LumoUtility.Padding.MEDIUM, LumoUtility.Gap.SMALL);
 
-        add(new ViewToolbar("Task List", ViewToolbar.group(description, dueDate, personaComboBox, createBtn)));
+        // The export is written straight to the response while the user downloads it, outside the session lock
+        var exportCsv = downloadLink("Exportar CSV", "tareas.csv", (out, session) -> taskExportService.exportCsv(out));
+        var exportJson = downloadLink("Exportar JSON", "tareas.json",
+                (out, session) -> taskExportService.exportJson(out));
+
+        add(new ViewToolbar("Task List", ViewToolbar.group(description, dueDate, personaComboBox, createBtn),
+                ViewToolbar.group(searchField, includeArchived, exportCsv, exportJson)));
+        add(ViewToolbar.group(statusFilter, personaFilter, dueFromFilter, dueToFilter, overdueFilter));
         add(taskGrid);
+
+        addAttachListener(event -> {
+            var ui = event.getUI();
+            var registrations = List.of(
+                    broadcaster.addTaskListener(changed -> ui.access(() -> onTaskChanged(changed))),
+                    broadcaster.addPersonaListener(changed -> ui.access(() -> onPersonaChanged(changed))));
+            addDetachListener(detachEvent -> {
+                detachEvent.unregisterListener();
+                registrations.forEach(Registration::remove);
+                taskDoneWriteBehind.flush();
+            });
+        });
+    }
+
+    private void onTaskChanged(TaskChangedEvent event) {
+        if (event.kind() != ChangeKind.UPDATED || event.taskIds().size() > MAX_ITEMS_TO_REFRESH) {
+            // Rows appear or disappear, so positions of the rows after them change
+            refreshGrid();
+            return;
+        }
+        taskService.listByIds(event.taskIds()).forEach(taskDataView::refreshItem);
+    }
+
+    private void onPersonaChanged(PersonaChangedEvent event) {
+        if (event.kind() != ChangeKind.CREATED) {
+            // Any visible task may show the renamed persona, or have been deleted with it
+            refreshGrid();
+        }
+    }
+
+    private Stream<TaskRow> fetchTasks(Query<TaskRow, Void> query) {
+        if (!searchField.getValue().isBlank()) {
+            // Ranked by relevance: the grid's sort does not apply
+            return taskService.search(searchField.getValue(), PageRequest.of(query.getPage(), query.getPageSize()))
+                    .stream();
+        }
+        var filter = filter();
+        if (!filter.isEmpty() || !query.getSortOrders().isEmpty()) {
+            // The rows before the page depend on the filter and the order, so there is no cursor to seek from
+            return taskService.listRows(filter, toSpringPageRequest(query)).stream();
+        }
+        var offset = query.getOffset();
+        var limit = query.getLimit();
+        var cursor = cursors.get(offset);
+        List<TaskRow> rows;
+        if (includeArchived.getValue()) {
+            rows = cursor != null ? taskHistoryService.listWithArchived(cursor, 0, limit)
+                    : taskHistoryService.listWithArchived(null, offset, limit);
+        } else if (offset == 0 || cursor != null) {
+            rows = taskService.listAfter(cursor, limit);
+        } else {
+            // Jumping to a position that was never scrolled through (e.g. by dragging the scrollbar)
+            rows = taskService.listRows(toSpringPageRequest(query).withSort(NEWEST_FIRST));
+        }
+        if (!rows.isEmpty()) {
+            cursors.put(offset + rows.size(), TaskCursor.of(rows.get(rows.size() - 1)));
+        }
+        return rows.stream();
+    }
+
+    private void updateSearchMode() {
+        // Search results come ranked by relevance and match on the words only, so sorting and the filters are turned
+        // off while there is a search
+        var searching = !searchField.getValue().isBlank();
+        if (searching) {
+            taskGrid.sort(List.of());
+        }
+        sortableColumns.forEach(column -> column.setSortable(!searching));
+        List.<HasEnabled> of(statusFilter, personaFilter, dueFromFilter, dueToFilter, overdueFilter)
+                .forEach(field -> field.setEnabled(!searching));
+    }
+
+    private TaskFilter filter() {
+        var status = statusFilter.getValue();
+        var persona = personaFilter.getValue();
+        return new TaskFilter(OPEN.equals(status) ? Boolean.FALSE : DONE.equals(status) ? Boolean.TRUE : null,
+                persona != null ? persona.id() : null, dueFromFilter.getValue(), dueToFilter.getValue(),
+                overdueFilter.getValue());
+    }
+
+    private static Anchor downloadLink(String text, String fileName, StreamResourceWriter writer) {
+        var link = new Anchor(new StreamResource(fileName, writer), "");
+        link.getElement().setAttribute("download", true);
+        link.add(new Button(text, VaadinIcon.DOWNLOAD.create()));
+        return link;
+    }
+
+    private void setPersonaItems(ComboBox<PersonaRow> comboBox) {
+        comboBox.setItemLabelGenerator(p -> p.apellido() + ", " + p.nombre());
+        // Only the page being shown is fetched, filtered on the server as the user types. The rows are shared by all
+        // sessions and a renamed persona comes back as a new row, so rows are matched by persona id.
+        comboBox.setItems(query -> personaService.search(query.getFilter().orElse(""), toSpringPageRequest(query))
+                .stream()).setIdentifierProvider(PersonaRow::id);
+    }
+
+    private void refreshGrid() {
+        // Reloading before buffered toggles are written would show their old value
+        taskDoneWriteBehind.flush();
+        cursors.clear();
+        taskGrid.getDataProvider().refreshAll();
     }
 
     private void createTask() {
@@ -137,8 +339,7 @@ public class TaskListView extends Main {
             return;
         }
 
-        taskService.createTask(description.getValue(), dueDate.getValue(), personaComboBox.getValue());
-        taskGrid.getDataProvider().refreshAll();
+        taskService.createTask(description.getValue(), dueDate.getValue(), personaComboBox.getValue().id());
         description.clear();
         dueDate.clear();
         personaComboBox.clear();
@@ -147,6 +348,26 @@ public class TaskListView extends Main {
                 .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
     }
     
+    void setDone(TaskRow row, boolean done) {
+        // Buffered and written together with other toggles, see TaskDoneWriteBehind
+        taskDoneWriteBehind.setDone(row.id(), done);
+        taskDataView.refreshItem(row.withDone(done));
+    }
+
+    private void deleteTask(TaskRow row) {
+        taskService.deleteTask(row.id());
+        Notification.show("Tarea eliminada", 3000, Notification.Position.BOTTOM_END)
+                .addThemeVariants(NotificationVariant.LUMO_CONTRAST);
+    }
+
+    void editTask(TaskRow row) {
+        // The grid only holds rows; the entity is loaded for the dialog and dropped with it. Buffered toggles are
+        // written first: saving the dialog writes the whole task, and would undo a toggle the entity does not have yet.
+        taskDoneWriteBehind.flush();
+        taskService.get(row.id()).ifPresentOrElse(this::openEditTaskDialog,
+                () -> Notification.show("La tarea ya no existe", 3000, Notification.Position.BOTTOM_END));
+    }
+
     private void openEditTaskDialog(Task task) {
         Dialog dialog = new Dialog();
         dialog.setWidth("400px");
@@ -158,10 +379,9 @@ public class TaskListView extends Main {
         DatePicker dueDatePicker = new DatePicker("Fecha de Vencimiento");
         dueDatePicker.setValue(Optional.ofNullable(task.getDueDate()).orElse(null));
         
-        ComboBox<Persona> personaComboBox = new ComboBox<>("Asignar a");
-        personaComboBox.setItemLabelGenerator(p -> p.getApellido() + ", " + p.getNombre());
-        personaComboBox.setItems(personaService.listAll());
-        personaComboBox.setValue(task.getPersona());
+        ComboBox<PersonaRow> personaComboBox = new ComboBox<>("Asignar a");
+        setPersonaItems(personaComboBox);
+        personaComboBox.setValue(PersonaRow.of(task.getPersona()));
         
         Button saveButton = new Button("Guardar", event -> {
         	if (descriptionField.isEmpty() || personaComboBox.isEmpty()) {
@@ -170,12 +390,21 @@ public class TaskListView extends Main {
                 return;
             }
 
+            var personaId = personaComboBox.getValue().id();
+            if (!personaId.equals(task.getPersona().getId())) {
+                // The combo box only holds rows; the newly assigned persona is loaded to be set on the task
+                var persona = personaService.get(personaId);
+                if (persona.isEmpty()) {
+                    Notification.show("La persona ya no existe", 3000, Notification.Position.BOTTOM_END)
+                            .addThemeVariants(NotificationVariant.LUMO_ERROR);
+                    return;
+                }
+                task.setPersona(persona.get());
+            }
             task.setDescription(descriptionField.getValue());
             task.setDueDate(dueDatePicker.getValue());
-            task.setPersona(personaComboBox.getValue());
             
             taskService.updateTask(task);
-            taskGrid.getDataProvider().refreshAll();
 
             Notification.show("Tarea actualizada", 3000, Notification.Position.BOTTOM_END);
             dialog.close();
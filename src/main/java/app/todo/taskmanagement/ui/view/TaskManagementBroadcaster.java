@@ -0,0 +1,70 @@
+package app.todo.taskmanagement.ui.view;
+
+import app.todo.taskmanagement.service.PersonaChangedEvent;
+import app.todo.taskmanagement.service.TaskChangedEvent;
+import com.vaadin.flow.shared.Registration;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Forwards task and persona changes to every open view, once the transaction that made them has committed. Listeners
+ * are called on a background thread, so they must use {@code UI.access} to update their UI; the changes reach the
+ * browsers through server push.
+ */
+@Component
+public class TaskManagementBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskManagementBroadcaster.class);
+
+    // Notifying on a separate thread keeps the request that made the change from locking other sessions
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final List<Consumer<TaskChangedEvent>> taskListeners = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<PersonaChangedEvent>> personaListeners = new CopyOnWriteArrayList<>();
+
+    public Registration addTaskListener(Consumer<TaskChangedEvent> listener) {
+        return Registration.addAndRemove(taskListeners, listener);
+    }
+
+    public Registration addPersonaListener(Consumer<PersonaChangedEvent> listener) {
+        return Registration.addAndRemove(personaListeners, listener);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTaskChanged(TaskChangedEvent event) {
+        broadcast(taskListeners, event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onPersonaChanged(PersonaChangedEvent event) {
+        broadcast(personaListeners, event);
+    }
+
+    private <E> void broadcast(List<Consumer<E>> listeners, E event) {
+        for (var listener : listeners) {
+            executor.execute(() -> {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException ex) {
+                    // Typically a UI that was closed while the event was on its way
+                    log.debug("Could not deliver {}", event, ex);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
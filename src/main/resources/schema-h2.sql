@@ -0,0 +1,16 @@
+-- Counterpart of schema-postgresql.sql for the embedded H2 database (spring.sql.init.platform=h2), used by the
+-- benchmarks and tests. Only what the application cannot run without; every statement must be safe to run on each
+-- startup.
+
+-- Task history (TaskHistoryService). Not partitioned: H2 has no table partitioning.
+CREATE TABLE IF NOT EXISTS task_history (
+    task_id bigint NOT NULL,
+    description varchar(255) NOT NULL,
+    creation_date timestamp(6) with time zone NOT NULL,
+    due_date date,
+    persona_id bigint NOT NULL,
+    persona_name varchar(102) NOT NULL,
+    archived_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (task_id, creation_date)
+);
+CREATE INDEX IF NOT EXISTS task_history_creation_date_task_id_idx ON task_history (creation_date, task_id);
@@ -0,0 +1,51 @@
+-- Runs after Hibernate has updated the schema (spring.jpa.defer-datasource-initialization). Only for DDL that cannot be
+-- expressed with JPA annotations; every statement must be safe to run on each startup.
+
+-- Prefix search for the persona combo boxes (PersonaRepository.findRowsByPrefix)
+CREATE INDEX IF NOT EXISTS persona_apellido_prefix_idx ON persona (lower(apellido) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS persona_nombre_prefix_idx ON persona (lower(nombre) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS persona_dni_prefix_idx ON persona ((cast(dni AS varchar)) varchar_pattern_ops);
+
+-- Ids come from pooled sequences (blocks of 50, see hibernate.id.optimizer.pooled.preferred). Databases created when the
+-- ids were identity columns already hold ids the new sequences would hand out again, so move them past those.
+SELECT setval('task_seq', (SELECT max(task_id) FROM task))
+WHERE (SELECT max(task_id) FROM task) >= (SELECT last_value FROM task_seq);
+SELECT setval('persona_seq', (SELECT max(persona_id) FROM persona))
+WHERE (SELECT max(persona_id) FROM persona) >= (SELECT last_value FROM persona_seq);
+
+-- Full-text search over task descriptions (TaskRepository.searchIds)
+ALTER TABLE task ADD COLUMN IF NOT EXISTS description_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', description)) STORED;
+CREATE INDEX IF NOT EXISTS task_description_tsv_idx ON task USING gin (description_tsv);
+
+-- Overdue scanner (TaskRepository.findNewlyOverdue): only open tasks that are not flagged yet are indexed, so the
+-- index stays small and each scan reads nothing but the tasks it is about to flag
+CREATE INDEX IF NOT EXISTS task_overdue_scan_idx ON task (due_date, task_id) WHERE done = false AND overdue = false;
+
+-- Daily counter rollover (TaskStatisticsRepository.countRollOver): open tasks by due date, with the persona so that the
+-- rollover is answered from the index alone
+CREATE INDEX IF NOT EXISTS task_open_due_date_idx ON task (due_date, persona_id) WHERE done = false;
+
+-- Archival (TaskHistoryService): done tasks are picked oldest first, and moved into a history table partitioned by
+-- year of creation. The yearly partitions are created by the archiver when it first needs them.
+CREATE INDEX IF NOT EXISTS task_archive_idx ON task (creation_date, task_id) WHERE done = true;
+CREATE TABLE IF NOT EXISTS task_history (
+    task_id bigint NOT NULL,
+    description varchar(255) NOT NULL,
+    creation_date timestamp(6) with time zone NOT NULL,
+    due_date date,
+    persona_id bigint NOT NULL,
+    persona_name varchar(102) NOT NULL,
+    archived_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (task_id, creation_date)
+) PARTITION BY RANGE (creation_date);
+CREATE INDEX IF NOT EXISTS task_history_creation_date_task_id_idx ON task_history (creation_date, task_id);
+
+-- Replaced by task_persona_id_done_due_date_idx (see Task), which starts with the same column
+DROP INDEX IF EXISTS task_persona_id_idx;
+
+-- Entity uuids (AbstractEntity): rows stored before the column existed get one, then the column becomes mandatory
+UPDATE task SET uuid = gen_random_uuid() WHERE uuid IS NULL;
+ALTER TABLE task ALTER COLUMN uuid SET NOT NULL;
+UPDATE persona SET uuid = gen_random_uuid() WHERE uuid IS NULL;
+ALTER TABLE persona ALTER COLUMN uuid SET NOT NULL;
@@ -0,0 +1,42 @@
+package app.todo;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server against a fresh embedded H2 database, for the JMH benchmarks. Run them
+ * with {@code ./mvnw -Pbenchmark verify -DskipTests}; the results are written to {@code target/jmh-result.json}.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Starts a new context with its own, empty in-memory database. Additional {@code --name=value} arguments override
+     * the defaults below.
+     */
+    public static ConfigurableApplicationContext start(String... args) {
+        // Must be set before the context starts, the restarter does not read the environment
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        var arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.sql.init.platform=h2",
+                "--spring.devtools.livereload.enabled=false",
+                "--vaadin.launch-browser=false",
+                "--logging.level.root=warn"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(Application.class).web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+    }
+}
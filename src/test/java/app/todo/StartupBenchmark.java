@@ -0,0 +1,110 @@
+package app.todo;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long the packaged application takes from launch until its context is refreshed, each start in a new JVM
+ * so that every measurement is a cold start. Compares the regular start ({@code java -jar}, schema diffed and updated,
+ * schema script run) with the optimized one of the Dockerfile (unpacked jar with a CDS archive from a training run,
+ * {@code fast-startup} profile). Both use the same H2 file database, whose schema is created before measuring.
+ * <p>
+ * Whether the bean definitions were generated ahead of time depends on how the jar was built, so run the benchmark once
+ * per build and compare the results:
+ * </p>
+ * <pre>
+ * ./mvnw -Pproduction,benchmark verify -DskipTests -Djmh.include=StartupBenchmark
+ * ./mvnw -Pproduction,fast-startup,benchmark verify -DskipTests -Djmh.include=StartupBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String EXIT_ON_REFRESH = "-Dspring.context.exit=onRefresh";
+
+    @Param({ "regular", "optimized" })
+    String startup;
+
+    private Path workDirectory;
+
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        workDirectory = Files.createTempDirectory("startup-benchmark");
+        var jar = packagedJar();
+        var arguments = List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + workDirectory.resolve("todo"),
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.sql.init.platform=h2",
+                "--server.port=0",
+                "--vaadin.launch-browser=false",
+                "--logging.level.root=warn");
+        // Creates the schema, which the optimized start only validates
+        run(command(List.of(EXIT_ON_REFRESH, "-jar", jar.toString()), arguments));
+
+        if (startup.equals("regular")) {
+            command = command(List.of(EXIT_ON_REFRESH, "-jar", jar.toString()), arguments);
+            return;
+        }
+        var application = workDirectory.resolve("application");
+        run(command(List.of("-Djarmode=tools", "-jar", jar.toString(), "extract", "--destination",
+                application.toString()), List.of()));
+        var unpacked = application.resolve(jar.getFileName()).toString();
+        var archive = application.resolve("app.jsa").toString();
+        run(command(List.of("-XX:ArchiveClassesAtExit=" + archive, EXIT_ON_REFRESH, "-jar", unpacked), arguments));
+        command = command(List.of("-XX:SharedArchiveFile=" + archive, EXIT_ON_REFRESH, "-jar", unpacked,
+                "--spring.profiles.active=fast-startup"), arguments);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    public void start() throws IOException, InterruptedException {
+        run(command);
+    }
+
+    private static Path packagedJar() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("target"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException(
+                            "No jar in target; run the benchmark with -Pproduction so that it is packaged first"));
+        }
+    }
+
+    private static List<String> command(List<String> javaArguments, List<String> applicationArguments) {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(javaArguments);
+        command.addAll(applicationArguments);
+        return command;
+    }
+
+    private void run(List<String> command) throws IOException, InterruptedException {
+        var log = workDirectory.resolve("last-start.log");
+        var process = new ProcessBuilder(command).directory(workDirectory.toFile()).redirectErrorStream(true)
+                .redirectOutput(log.toFile()).start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Start failed, see " + log + ":\n" + Files.readString(log));
+        }
+    }
+}
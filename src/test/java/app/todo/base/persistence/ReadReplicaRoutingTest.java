@@ -0,0 +1,72 @@
+package app.todo.base.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; each one reports its own name. The replica gets
+ * the schema of the primary but none of its rows, like a replica that lags behind.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "app.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.driverClassName=org.h2.Driver",
+        "app.datasource.replica.username=sa",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.platform=h2",
+        "app.tasks.overdue-scan-cron=-",
+        "app.tasks.statistics-reconcile-cron=-",
+        "app.tasks.statistics-rollover-cron=-",
+        "app.tasks.archive-cron=-",
+        "vaadin.launch-browser=false" })
+public class ReadReplicaRoutingTest {
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    @BeforeEach
+    protected void copySchemaToReplica() {
+        var replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("drop all objects");
+        jdbcTemplate.queryForList("script nodata", String.class).stream()
+                .filter(statement -> !statement.startsWith("--") && !statement.startsWith("CREATE USER"))
+                .forEach(replica::execute);
+    }
+
+    @Test
+    void read_only_transactions_use_the_replica() {
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        assertThat(transaction.execute(status -> databaseName())).isEqualTo("REPLICA");
+    }
+
+    @Test
+    void read_write_transactions_use_the_primary() {
+        var transaction = new TransactionTemplate(transactionManager);
+        assertThat(transaction.execute(status -> databaseName())).isEqualTo("PRIMARY");
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("select database()", String.class);
+    }
+}
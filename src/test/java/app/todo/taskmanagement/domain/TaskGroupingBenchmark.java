@@ -0,0 +1,61 @@
+package app.todo.taskmanagement.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Groups tasks by persona and collects them into a set, the way views and services use entities as hash keys. Both
+ * take time in proportion to the number of tasks only as long as entities of the same class spread over many hash
+ * buckets; compare the time per task across dataset sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskGroupingBenchmark {
+
+    private static final int TASKS_PER_PERSONA = 100;
+
+    @Param({ "10000", "100000" })
+    int datasetSize;
+
+    private List<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var personas = new ArrayList<Persona>();
+        for (int i = 0; i < datasetSize / TASKS_PER_PERSONA; i++) {
+            var persona = new Persona();
+            persona.setDni(10000000 + i);
+            persona.setApellido("Apellido " + i);
+            persona.setNombre("Nombre " + i);
+            personas.add(persona);
+        }
+        tasks = new ArrayList<>();
+        for (int i = 0; i < datasetSize; i++) {
+            var task = new Task();
+            task.setDescription("Task " + i);
+            task.setPersona(personas.get(i % personas.size()));
+            tasks.add(task);
+        }
+    }
+
+    @Benchmark
+    public Map<Persona, List<Task>> groupByPersona() {
+        return tasks.stream().collect(Collectors.groupingBy(Task::getPersona));
+    }
+
+    @Benchmark
+    public Set<Task> collectIntoSet() {
+        return new HashSet<>(tasks);
+    }
+}
@@ -0,0 +1,52 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.Persona;
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Seeds the database of a benchmark context through the services.
+ */
+final class BenchmarkData {
+
+    private static final int TASKS_PER_CALL = 5000;
+
+    private BenchmarkData() {
+    }
+
+    static List<Persona> createPersonas(PersonaService personaService, int count) {
+        for (int i = 0; i < count; i++) {
+            personaService.createPersona(10000000 + i, "Apellido" + i, "Nombre" + i, 30);
+        }
+        return personaService.list(PageRequest.ofSize(count));
+    }
+
+    static void createTasks(TaskService taskService, List<Persona> personas, int count) {
+        createTasks(taskService, personas, count, i -> null);
+    }
+
+    // Due dates spread from a month before to two months after today on the application's clock, so that the data has
+    // overdue, due soon and later tasks whenever it is run; every fifth task has none
+    static void createScheduledTasks(TaskService taskService, List<Persona> personas, int count, Clock clock) {
+        var today = LocalDate.now(clock);
+        createTasks(taskService, personas, count, i -> i % 5 == 0 ? null : today.plusDays(i % 90 - 30));
+    }
+
+    private static void createTasks(TaskService taskService, List<Persona> personas, int count,
+            IntFunction<@Nullable LocalDate> dueDate) {
+        var batch = new ArrayList<NewTask>(TASKS_PER_CALL);
+        for (int i = 0; i < count; i++) {
+            batch.add(new NewTask("Benchmark task " + i, dueDate.apply(i), personas.get(i % personas.size())));
+            if (batch.size() == TASKS_PER_CALL || i == count - 1) {
+                taskService.createTasks(batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.TestcontainersConfiguration;
+import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.TaskRepository;
+import app.todo.taskmanagement.service.PersonaImportResult.Reject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PersonaImporterIT {
+
+    @Autowired
+    PersonaImporter personaImporter;
+
+    @Autowired
+    PersonaService personaService;
+
+    @Autowired
+    TaskStatisticsService statisticsService;
+
+    @Autowired
+    TaskRepository taskRepository;
+
+    @Autowired
+    PersonaRepository personaRepository;
+
+    @AfterEach
+    void cleanUp() {
+        taskRepository.deleteAllInBatch();
+        personaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void personas_are_upserted_on_dni_and_invalid_lines_are_reported() throws Exception {
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        var existing = personaService.list(PageRequest.ofSize(1)).get(0);
+        var csv = """
+                dni,apellido,nombre,edad
+                12345678,Pérez,Juan Carlos,31
+                23456789,"Gomez, de",Ana,
+                abc,Lopez,Luis,40
+                34567890,,Marta,20
+                """;
+
+        var result = personaImporter.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(2);
+        assertThat(result.rejects()).extracting(Reject::line).containsExactly(4L, 5L);
+        assertThat(personaService.listAll()).extracting(Persona::getDni, Persona::getApellido, Persona::getNombre)
+                .containsExactlyInAnyOrder(tuple(12345678, "Pérez", "Juan Carlos"),
+                        tuple(23456789, "Gomez, de", "Ana"));
+        // The existing persona keeps its id, and the new one has its statistics row
+        assertThat(personaService.get(existing.getId())).get().extracting(Persona::getApellido).isEqualTo("Pérez");
+        assertThat(statisticsService.listByPersona(PageRequest.ofSize(10))).hasSize(2);
+    }
+
+    @Test
+    void the_last_line_wins_when_a_dni_is_repeated() throws Exception {
+        var csv = """
+                23456789,Gomez,Ana,25
+                34567890,Lopez,Luis,40
+                23456789,Gómez,Ana María,26
+                """;
+
+        var result = personaImporter.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.updated()).isZero();
+        assertThat(result.rejected()).isZero();
+        assertThat(personaService.listAll()).extracting(Persona::getDni, Persona::getApellido, Persona::getNombre)
+                .containsExactlyInAnyOrder(tuple(23456789, "Gómez", "Ana María"), tuple(34567890, "Lopez", "Luis"));
+    }
+}
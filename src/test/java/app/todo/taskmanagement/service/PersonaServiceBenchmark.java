@@ -0,0 +1,42 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.BenchmarkApplication;
+import app.todo.taskmanagement.domain.Persona;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonaServiceBenchmark {
+
+    @Param({ "100", "10000" })
+    int personaCount;
+
+    private ConfigurableApplicationContext context;
+
+    private PersonaService personaService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        personaService = context.getBean(PersonaService.class);
+        BenchmarkData.createPersonas(personaService, personaCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Persona> listAll() {
+        return personaService.listAll();
+    }
+}
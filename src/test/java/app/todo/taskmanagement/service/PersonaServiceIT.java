@@ -0,0 +1,107 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.TestcontainersConfiguration;
+import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.PersonaTaskStatistics;
+import app.todo.taskmanagement.domain.PersonaRow;
+import app.todo.taskmanagement.domain.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+class PersonaServiceIT {
+
+    private static final Pageable FIRST_PAGE = PageRequest.ofSize(10);
+
+    @Autowired
+    PersonaService personaService;
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    TaskStatisticsService statisticsService;
+
+    @Autowired
+    TaskRepository taskRepository;
+
+    @Autowired
+    PersonaRepository personaRepository;
+
+    @Autowired
+    ApplicationEvents events;
+
+    @AfterEach
+    void cleanUp() {
+        taskRepository.deleteAllInBatch();
+        personaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void searches_are_cached_until_a_persona_changes() {
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+
+        // A hit returns the cached rows themselves; another filter is a miss of its own
+        var cached = personaService.search("pe", FIRST_PAGE);
+        assertThat(personaService.search("pe", FIRST_PAGE)).isSameAs(cached);
+        assertThat(personaService.search("ju", FIRST_PAGE)).isNotSameAs(cached).hasSize(1);
+
+        personaService.createPersona(23456789, "Pereyra", "Ana", null);
+        assertThat(apellidos("pe")).containsExactly("Pereyra", "Perez");
+
+        var perez = personaService.get(personaService.search("perez", FIRST_PAGE).get(0).id()).orElseThrow();
+        perez.setApellido("Lopez");
+        personaService.updatePersona(perez);
+        assertThat(apellidos("pe")).containsExactly("Pereyra");
+
+        personaService.importPersonas(List.of(new NewPersona(34567890, "Peralta", "Luis", null)));
+        assertThat(apellidos("pe")).containsExactly("Peralta", "Pereyra");
+
+        personaService.deletePersona(personaService.search("pereyra", FIRST_PAGE).get(0).id());
+        assertThat(apellidos("pe")).containsExactly("Peralta");
+    }
+
+    @Test
+    void personas_are_deleted_with_all_their_tasks_in_chunks() {
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        personaService.createPersona(23456789, "Gomez", "Ana", null);
+        var perez = personaService.search("perez", FIRST_PAGE).get(0);
+        var gomez = personaService.search("gomez", FIRST_PAGE).get(0);
+        var persona = personaService.get(perez.id()).orElseThrow();
+        // Exactly two full chunks, so the last chunk that comes back is empty
+        taskService.createTasks(IntStream.range(0, 2000).mapToObj(i -> new NewTask("Task " + i, null, persona))
+                .toList());
+        taskService.createTask("Other", null, gomez.id());
+
+        personaService.deletePersona(perez.id());
+
+        assertThat(personaService.get(perez.id())).isEmpty();
+        assertThat(taskRepository.count()).isEqualTo(1);
+        assertThat(statisticsService.listByPersona(FIRST_PAGE)).extracting(PersonaTaskStatistics::personaId)
+                .containsExactly(gomez.id());
+        assertThat(events.stream(PersonaChangedEvent.class)).filteredOn(event -> event.kind() == ChangeKind.DELETED)
+                .containsExactly(new PersonaChangedEvent(ChangeKind.DELETED, Set.of(perez.id())));
+    }
+
+    private List<String> apellidos(String filter) {
+        return personaService.search(filter, FIRST_PAGE).stream().map(PersonaRow::apellido).toList();
+    }
+}
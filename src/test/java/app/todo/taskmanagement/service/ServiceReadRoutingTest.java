@@ -0,0 +1,52 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.base.persistence.ReadReplicaRoutingTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which database the service reads go to, with the lagging replica of {@link ReadReplicaRoutingTest}: lookups that must
+ * see a change that has just been committed go to the primary.
+ */
+class ServiceReadRoutingTest extends ReadReplicaRoutingTest {
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    PersonaService personaService;
+
+    @Autowired
+    JdbcTemplate primary;
+
+    @AfterEach
+    void cleanUp() {
+        primary.update("delete from task");
+        primary.update("delete from task_statistics");
+        primary.update("delete from persona");
+    }
+
+    @Test
+    void reads_that_must_see_the_latest_change_use_the_primary() {
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        var personaId = primary.queryForObject("select persona_id from persona", Long.class);
+        taskService.createTask("Nueva", null, personaId);
+        var taskId = primary.queryForObject("select task_id from task", Long.class);
+
+        // Loaded for editing, or to refresh the rows a change event names
+        assertThat(personaService.get(personaId)).isPresent();
+        assertThat(personaService.listRowsByIds(List.of(personaId))).hasSize(1);
+        assertThat(taskService.get(taskId)).isPresent();
+        assertThat(taskService.listByIds(List.of(taskId))).hasSize(1);
+        // Plain listings may lag behind
+        assertThat(personaService.list(PageRequest.ofSize(10))).isEmpty();
+        assertThat(taskService.listAfter(null, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package app.todo.taskmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class TaskDoneWriteBehindTest {
+
+    private final TaskService taskService = mock(TaskService.class);
+
+    private final TaskDoneWriteBehind writeBehind = new TaskDoneWriteBehind(taskService);
+
+    @Test
+    void repeated_toggles_of_a_task_are_written_once_with_the_last_value() {
+        writeBehind.setDone(1L, true);
+        writeBehind.setDone(1L, false);
+        writeBehind.setDone(1L, true);
+        writeBehind.setDone(2L, false);
+
+        writeBehind.flush();
+        writeBehind.flush();
+
+        verify(taskService).updateDone(Map.of(1L, true, 2L, false));
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    void values_of_a_failed_flush_are_retried_unless_toggled_again() {
+        doAnswer(invocation -> {
+            // Toggled again while the failing flush is writing
+            writeBehind.setDone(1L, true);
+            throw new IllegalStateException("Database unavailable");
+        }).doNothing().when(taskService).updateDone(anyMap());
+        writeBehind.setDone(1L, false);
+        writeBehind.setDone(2L, true);
+
+        assertThatThrownBy(writeBehind::flush).isInstanceOf(IllegalStateException.class);
+        writeBehind.flush();
+
+        verify(taskService).updateDone(Map.of(1L, false, 2L, true));
+        verify(taskService).updateDone(Map.of(1L, true, 2L, true));
+    }
+
+    @Test
+    void a_full_buffer_is_flushed_before_it_takes_another_task() {
+        LongStream.range(0, TaskDoneWriteBehind.MAX_PENDING).forEach(id -> writeBehind.setDone(id, true));
+        // Toggling a task that is already buffered does not make the buffer grow
+        writeBehind.setDone(0L, false);
+        verify(taskService, never()).updateDone(anyMap());
+
+        writeBehind.setDone((long) TaskDoneWriteBehind.MAX_PENDING, true);
+
+        verify(taskService).updateDone(argThat(batch -> batch.size() == TaskDoneWriteBehind.MAX_PENDING
+                && !batch.get(0L)));
+        verifyNoMoreInteractions(taskService);
+    }
+}
@@ -0,0 +1,122 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.TestcontainersConfiguration;
+import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.TaskRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The jobs are disabled so that they do not load entities while the statistics are being read
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "app.tasks.overdue-scan-cron=-", "app.tasks.statistics-reconcile-cron=-",
+        "app.tasks.statistics-rollover-cron=-", "app.tasks.archive-cron=-" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskExportServiceIT {
+
+    @Autowired
+    TaskExportService taskExportService;
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    PersonaService personaService;
+
+    @Autowired
+    TaskRepository taskRepository;
+
+    @Autowired
+    PersonaRepository personaRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Persona perez;
+
+    private Persona gomez;
+
+    @BeforeEach
+    void setUp() {
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        personaService.createPersona(23456789, "Gomez, de", "=Ana", null);
+        var personas = personaService.list(PageRequest.ofSize(2));
+        perez = personas.stream().filter(persona -> persona.getDni() == 12345678).findFirst().orElseThrow();
+        gomez = personas.stream().filter(persona -> persona.getDni() == 23456789).findFirst().orElseThrow();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        taskRepository.deleteAllInBatch();
+        personaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void tasks_are_exported_as_csv_with_their_persona() throws Exception {
+        taskService.createTask("Comprar \"pan\", leche", LocalDate.of(2025, 2, 7), perez);
+        taskService.createTask("=HYPERLINK(\"http://example.com\")", null, perez);
+        taskService.createTask("-1 punto", null, gomez);
+        var ids = idsByDescription();
+
+        var lines = exportCsv();
+
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0))
+                .isEqualTo("task_id,description,creation_date,due_date,done,persona_id,dni,apellido,nombre");
+        // Rows come in id order; the creation date between the description and the due date is not checked
+        assertThat(lines.get(1)).startsWith(ids.get("Comprar \"pan\", leche") + ",\"Comprar \"\"pan\"\", leche\",")
+                .endsWith(",2025-02-07,false," + perez.getId() + ",12345678,Perez,Juan");
+        assertThat(lines.get(2))
+                .startsWith(ids.get("=HYPERLINK(\"http://example.com\")")
+                        + ",\"'=HYPERLINK(\"\"http://example.com\"\")\",")
+                .endsWith(",,false," + perez.getId() + ",12345678,Perez,Juan");
+        assertThat(lines.get(3)).startsWith(ids.get("-1 punto") + ",'-1 punto,")
+                .endsWith(",,false," + gomez.getId() + ",23456789,\"Gomez, de\",'=Ana");
+    }
+
+    @Test
+    void exported_tasks_are_detached_once_written() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            taskService.createTask("Task " + i, null, perez);
+        }
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        assertThat(exportCsv()).hasSize(11);
+
+        // Had the persona stayed in the persistence context, it would have been loaded once for all its tasks
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(20);
+    }
+
+    private List<String> exportCsv() throws Exception {
+        var out = new ByteArrayOutputStream();
+        taskExportService.exportCsv(out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private Map<String, Long> idsByDescription() {
+        var ids = new HashMap<String, Long>();
+        taskService.listAfter(null, 10).forEach(row -> ids.put(row.description(), row.id()));
+        return ids;
+    }
+}
@@ -0,0 +1,72 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.BenchmarkApplication;
+import app.todo.taskmanagement.domain.TaskRow;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares offset and keyset paging of the task list at different depths into the list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskListBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "creationDate", "id");
+
+    @Param({ "1000", "100000" })
+    int datasetSize;
+
+    // Position of the page, in percent of the list
+    @Param({ "0", "50", "100" })
+    int depth;
+
+    private ConfigurableApplicationContext context;
+
+    private TaskService taskService;
+
+    private int pageNumber;
+
+    private @Nullable TaskCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        taskService = context.getBean(TaskService.class);
+        var personas = BenchmarkData.createPersonas(context.getBean(PersonaService.class), 100);
+        BenchmarkData.createTasks(taskService, personas, datasetSize);
+
+        pageNumber = (datasetSize / PAGE_SIZE - 1) * depth / 100;
+        if (pageNumber > 0) {
+            var previousPage = taskService.listRows(PageRequest.of(pageNumber - 1, PAGE_SIZE, NEWEST_FIRST));
+            cursor = TaskCursor.of(previousPage.get(previousPage.size() - 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TaskRow> offsetPage() {
+        return taskService.listRows(PageRequest.of(pageNumber, PAGE_SIZE, NEWEST_FIRST));
+    }
+
+    @Benchmark
+    public List<TaskRow> keysetPage() {
+        return taskService.listAfter(cursor, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,215 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.BenchmarkApplication;
+import app.todo.taskmanagement.domain.Persona;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates concurrent users of the task list against an embedded H2 database, through the services the views use, and
+ * reports the throughput and latency percentiles of each operation. Every user repeats a cycle of creating a task,
+ * listing and scrolling the newest tasks, toggling and editing one of them, looking up personas and deleting an older
+ * task, without pauses. The database is seeded first, with due dates relative to the application's clock.
+ * <p>
+ * Run it with {@code ./mvnw -Pload-test verify -DskipTests}; {@code -Dload.users}, {@code -Dload.duration},
+ * {@code -Dload.warmup}, {@code -Dload.personas} and {@code -Dload.tasks} change the defaults below. Other
+ * {@code --name=value} arguments given to {@link #main(String[])} are passed on to the application, e.g.
+ * {@code --spring.threads.virtual.enabled=true}.
+ * </p>
+ */
+public final class TaskLoadGenerator {
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    private final TaskService taskService;
+
+    private final PersonaService personaService;
+
+    private final Clock clock;
+
+    private final List<Persona> personas;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    // Operations of the warm-up are run but not recorded
+    private volatile boolean recording;
+
+    private TaskLoadGenerator(TaskService taskService, PersonaService personaService, Clock clock,
+            List<Persona> personas) {
+        this.taskService = taskService;
+        this.personaService = personaService;
+        this.clock = clock;
+        this.personas = personas;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = new LinkedHashMap<>(Map.of("users", "50", "duration", "PT60S", "warmup", "PT10S",
+                "personas", "100", "tasks", "10000"));
+        var applicationArguments = new ArrayList<String>();
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            var name = arg.startsWith("--") && separator > 0 ? arg.substring(2, separator) : "";
+            if (options.containsKey(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                applicationArguments.add(arg);
+            }
+        }
+        var users = Integer.parseInt(options.get("users"));
+        var duration = Duration.parse(options.get("duration"));
+        var warmup = Duration.parse(options.get("warmup"));
+
+        try (var context = BenchmarkApplication.start(applicationArguments.toArray(String[]::new))) {
+            var taskService = context.getBean(TaskService.class);
+            var personaService = context.getBean(PersonaService.class);
+            var clock = context.getBean(Clock.class);
+
+            var seedStart = System.nanoTime();
+            var personas = BenchmarkData.createPersonas(personaService, Integer.parseInt(options.get("personas")));
+            BenchmarkData.createScheduledTasks(taskService, personas, Integer.parseInt(options.get("tasks")), clock);
+            System.out.printf("Seeded %s personas and %s tasks in %d ms%n", options.get("personas"),
+                    options.get("tasks"), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+            var generator = new TaskLoadGenerator(taskService, personaService, clock, personas);
+            generator.run(users, warmup, duration);
+            generator.report(users, duration);
+        }
+    }
+
+    private void run(int users, Duration warmup, Duration duration) throws Exception {
+        var start = Instant.now();
+        var measureFrom = start.plus(warmup);
+        var deadline = measureFrom.plus(duration);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var sessions = IntStream.range(0, users)
+                    .mapToObj(user -> executor.submit(() -> session(user, deadline))).toList();
+            var untilMeasuring = Duration.between(Instant.now(), measureFrom);
+            if (untilMeasuring.isPositive()) {
+                Thread.sleep(untilMeasuring);
+            }
+            recording = true;
+            for (Future<?> session : sessions) {
+                session.get();
+            }
+        }
+    }
+
+    private void session(int user, Instant deadline) {
+        var random = ThreadLocalRandom.current();
+        for (int cycle = 0; Instant.now().isBefore(deadline); cycle++) {
+            var description = "Load task " + user + "-" + cycle;
+            var persona = personas.get(random.nextInt(personas.size()));
+            var dueDate = LocalDate.now(clock).plusDays(random.nextInt(-7, 30));
+            time("create", () -> taskService.createTask(description, dueDate, persona));
+
+            var firstPage = time("list", () -> taskService.listAfter(null, PAGE_SIZE));
+            if (firstPage == null || firstPage.isEmpty()) {
+                continue;
+            }
+            var cursor = TaskCursor.of(firstPage.get(firstPage.size() - 1));
+            var nextPage = time("scroll", () -> taskService.listAfter(cursor, PAGE_SIZE));
+
+            var toggled = firstPage.get(random.nextInt(firstPage.size()));
+            time("toggle-done", () -> taskService.updateDone(Map.of(toggled.id(), !toggled.done())));
+
+            var edited = firstPage.get(random.nextInt(firstPage.size()));
+            time("edit", () -> taskService.get(edited.id()).ifPresent(task -> {
+                task.setDescription(description + " (editada)");
+                taskService.updateTask(task);
+            }));
+
+            time("search-personas", () -> personaService.search(persona.getApellido(), PageRequest.ofSize(20)));
+
+            // Deleting an older task for each one created keeps the number of tasks about the same
+            if (nextPage != null && !nextPage.isEmpty()) {
+                var deleted = nextPage.get(random.nextInt(nextPage.size()));
+                time("delete", () -> taskService.deleteTask(deleted.id()));
+            }
+        }
+    }
+
+    private void time(String operation, Runnable call) {
+        time(operation, () -> {
+            call.run();
+            return Boolean.TRUE;
+        });
+    }
+
+    // Failures, e.g. a task deleted by another user in between, are counted and the user carries on
+    private <T> @Nullable T time(String operation, Supplier<T> call) {
+        var start = System.nanoTime();
+        try {
+            var result = call.get();
+            if (recording) {
+                timer(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return result;
+        } catch (RuntimeException ex) {
+            if (recording) {
+                errors.computeIfAbsent(operation, name -> new LongAdder()).increment();
+            }
+            return null;
+        }
+    }
+
+    private Timer timer(String operation) {
+        // Percentiles over the whole run, instead of the sliding window meant for monitoring
+        return timers.computeIfAbsent(operation, name -> Timer.builder("load." + name).publishPercentiles(PERCENTILES)
+                .distributionStatisticExpiry(Duration.ofDays(1)).distributionStatisticBufferLength(1)
+                .register(registry));
+    }
+
+    private void report(int users, Duration duration) {
+        var seconds = duration.toMillis() / 1000.0;
+        System.out.printf("%n%d users for %s%n%n", users, duration);
+        System.out.printf("%-16s %10s %10s %9s %9s %9s %9s %8s%n", "operation", "count", "ops/s", "p50 ms", "p95 ms",
+                "p99 ms", "max ms", "errors");
+        long total = 0;
+        // Timers only exist for operations that succeeded at least once, so those that always failed are in errors only
+        var operations = new TreeSet<>(timers.keySet());
+        operations.addAll(errors.keySet());
+        for (var operation : operations) {
+            var failed = errors.getOrDefault(operation, new LongAdder()).sum();
+            var timer = timers.get(operation);
+            if (timer == null) {
+                System.out.printf("%-16s %10d %10.1f %9s %9s %9s %9s %8d%n", operation, 0, 0.0, "-", "-", "-", "-",
+                        failed);
+                continue;
+            }
+            var percentiles = Arrays.stream(timer.takeSnapshot().percentileValues())
+                    .mapToDouble(value -> value.value(TimeUnit.MILLISECONDS)).toArray();
+            System.out.printf("%-16s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %8d%n", operation, timer.count(),
+                    timer.count() / seconds, percentiles[0], percentiles[1], percentiles[2],
+                    timer.max(TimeUnit.MILLISECONDS), failed);
+            total += timer.count();
+        }
+        System.out.printf("%-16s %10d %10.1f%n", "total", total, total / seconds);
+    }
+}
@@ -0,0 +1,121 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.TaskRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search on the embedded H2 database, i.e. through the in-memory {@link TaskSearchIndex}. On PostgreSQL the same
+ * queries go to the full-text index of the task table.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:search;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.platform=h2",
+        "app.tasks.overdue-scan-cron=-",
+        "app.tasks.statistics-reconcile-cron=-",
+        "app.tasks.statistics-rollover-cron=-",
+        "app.tasks.archive-cron=-",
+        "vaadin.launch-browser=false" })
+class TaskSearchTest {
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    TaskHistoryService taskHistoryService;
+
+    @Autowired
+    TaskSearchIndex searchIndex;
+
+    @Autowired
+    PersonaService personaService;
+
+    @Autowired
+    PersonaRepository personaRepository;
+
+    @Autowired
+    JdbcClient jdbcClient;
+
+    @Autowired
+    Clock clock;
+
+    private Persona persona;
+
+    @BeforeEach
+    void setUp() {
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        persona = personaService.list(PageRequest.ofSize(1)).get(0);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        // Through the service, so that the tasks also leave the index
+        taskService.listAfter(null, 100).forEach(row -> taskService.deleteTask(row.id()));
+        jdbcClient.sql("delete from task_history").update();
+        personaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void the_in_memory_index_ranks_and_pages_the_results() {
+        taskService.createTask("Comprar pan", null, persona);
+        taskService.createTask("Pan, pan y más pan", null, persona);
+        taskService.createTask("Pan dulce o pan", null, persona);
+        taskService.createTask("Leche", null, persona);
+
+        assertThat(searchIndex.isEnabled()).isTrue();
+        // Most occurrences first; every word of the query must occur
+        assertThat(search("pan", 0, 10)).containsExactly("Pan, pan y más pan", "Pan dulce o pan", "Comprar pan");
+        assertThat(search("PAN dulce", 0, 10)).containsExactly("Pan dulce o pan");
+        assertThat(search("pan", 1, 2)).containsExactly("Comprar pan");
+        assertThat(search("pan azúcar", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void changed_deleted_and_archived_tasks_are_kept_in_step_with_the_index() {
+        taskService.createTask("Comprar pan", null, persona);
+        taskService.createTask("Pagar la luz", null, persona);
+        taskService.createTask("Pagar el gas", null, persona);
+        var ids = idsByDescription();
+
+        var task = taskService.get(ids.get("Comprar pan")).orElseThrow();
+        task.setDescription("Comprar leche");
+        taskService.updateTask(task);
+        assertThat(search("pan", 0, 10)).isEmpty();
+        assertThat(search("leche", 0, 10)).containsExactly("Comprar leche");
+
+        taskService.deleteTask(ids.get("Pagar la luz"));
+        assertThat(search("pagar", 0, 10)).containsExactly("Pagar el gas");
+
+        taskService.updateDone(Map.of(ids.get("Pagar el gas"), true));
+        assertThat(taskHistoryService.archive(clock.instant().plusSeconds(1), 10)).isEqualTo(1);
+        assertThat(search("pagar", 0, 10)).isEmpty();
+    }
+
+    private List<String> search(String query, int page, int size) {
+        return taskService.search(query, PageRequest.of(page, size)).stream().map(TaskRow::description).toList();
+    }
+
+    private Map<String, Long> idsByDescription() {
+        var ids = new HashMap<String, Long>();
+        taskService.listAfter(null, 100).forEach(row -> ids.put(row.description(), row.id()));
+        return ids;
+    }
+}
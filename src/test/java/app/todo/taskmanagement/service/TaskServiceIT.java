@@ -3,8 +3,14 @@ package app.todo.taskmanagement.service;
 import app.todo.TestcontainersConfiguration;
 import app.todo.taskmanagement.domain.Task;
 import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.TaskFilter;
 import app.todo.taskmanagement.domain.TaskRepository;
+import app.todo.taskmanagement.domain.TaskRow;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.validation.ValidationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,17 +18,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
+// The jobs are disabled: the tests run the overdue scan and the archiving themselves, and a scheduled run would race
+// them or add its statements to a budget (the Hibernate statistics count every session). A fixed delay cannot be
+// switched off like a cron, so the write-behind flush is only pushed a day out.
 @Import(TestcontainersConfiguration.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "app.tasks.overdue-scan-cron=-", "app.tasks.statistics-reconcile-cron=-",
+        "app.tasks.statistics-rollover-cron=-", "app.tasks.archive-cron=-",
+        "app.tasks.done-flush-interval=PT24H" })
 @Transactional(propagation = Propagation.NOT_SUPPORTED)
 class TaskServiceIT {
 
@@ -34,6 +53,21 @@ class TaskServiceIT {
     
     @Autowired
     PersonaService personaService;
+
+    @Autowired
+    PersonaRepository personaRepository;
+
+    @Autowired
+    OverdueTaskScanner overdueTaskScanner;
+
+    @Autowired
+    TaskHistoryService taskHistoryService;
+
+    @Autowired
+    JdbcClient jdbcClient;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
     
     @Autowired
     Clock clock;
@@ -42,7 +76,9 @@ class TaskServiceIT {
     
     @AfterEach
     void cleanUp() {
-        taskRepository.deleteAll();
+        jdbcClient.sql("delete from task_history").update();
+        taskRepository.deleteAllInBatch();
+        personaRepository.deleteAllInBatch();
     }
     // Inicializamos una persona para usar en los tests
     @BeforeEach
@@ -66,4 +102,197 @@ class TaskServiceIT {
                 .isInstanceOf(ValidationException.class);
         assertThat(taskRepository.count()).isEqualTo(0);
     }
+
+    @Test
+    public void listing_a_page_of_tasks_does_not_load_personas_one_by_one() {
+        createTasksOfManyPersonas();
+
+        var statistics = statistics();
+        var page = taskService.list(PageRequest.ofSize(50));
+
+        assertThat(page).hasSize(50);
+        assertThat(page).allMatch(task -> task.getPersona().getApellido() != null);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void keyset_pages_follow_the_newest_first_order() {
+        for (int i = 0; i < 5; i++) {
+            taskService.createTask("Task " + i, null, persona);
+        }
+        var newestFirst = Sort.by(Sort.Direction.DESC, "creationDate", "id");
+        var expected = taskService.listRows(PageRequest.of(0, 5, newestFirst));
+
+        var firstPage = taskService.listAfter(null, 2);
+        var secondPage = taskService.listAfter(TaskCursor.of(firstPage.get(1)), 2);
+        var lastPage = taskService.listAfter(TaskCursor.of(secondPage.get(1)), 2);
+
+        assertThat(firstPage).containsExactlyElementsOf(expected.subList(0, 2));
+        assertThat(secondPage).containsExactlyElementsOf(expected.subList(2, 4));
+        assertThat(lastPage).containsExactlyElementsOf(expected.subList(4, 5));
+    }
+
+    @Test
+    public void bulk_created_tasks_are_inserted_in_batches() {
+        var newTasks = IntStream.range(0, 500).mapToObj(i -> new NewTask("Task " + i, null, persona)).toList();
+
+        var statistics = statistics();
+        taskService.createTasks(newTasks);
+
+        assertThat(taskRepository.count()).isEqualTo(500);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(500);
+        // One insert batch and one sequence call per 50 tasks, instead of an insert and a transaction per task
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(30);
+    }
+
+    @Test
+    public void open_tasks_past_their_due_date_are_flagged_once() {
+        var today = LocalDate.now(clock);
+        taskService.createTask("Overdue", today.minusDays(1), persona);
+        taskService.createTask("Due today", today, persona);
+        taskService.createTask("Done", today.minusDays(1), persona);
+        var done = taskService.list(PageRequest.ofSize(3)).stream()
+                .filter(task -> task.getDescription().equals("Done")).findFirst().orElseThrow();
+        taskService.updateDone(Map.of(done.getId(), true));
+
+        assertThat(overdueTaskScanner.scan()).isEqualTo(1);
+        assertThat(overdueTaskScanner.scan()).isZero();
+        assertThat(taskService.list(PageRequest.ofSize(3))).filteredOn(Task::isOverdue)
+                .extracting(Task::getDescription).containsExactly("Overdue");
+    }
+
+    @Test
+    public void filtered_rows_come_in_the_requested_order() {
+        var today = LocalDate.now(clock);
+        personaService.createPersona(87654321, "Gomez", "Ana", 25);
+        var other = personaService.list(PageRequest.ofSize(2)).stream()
+                .filter(candidate -> candidate.getApellido().equals("Gomez")).findFirst().orElseThrow();
+        taskService.createTask("B", today.plusDays(2), persona);
+        taskService.createTask("A", today.plusDays(1), persona);
+        taskService.createTask("C", today.plusDays(10), persona);
+        taskService.createTask("D", today.plusDays(1), other);
+
+        var filter = new TaskFilter(false, persona.getId(), today, today.plusDays(7), false);
+        assertThat(taskService.listRows(filter, PageRequest.of(0, 10, Sort.by("dueDate"))))
+                .extracting(TaskRow::description).containsExactly("A", "B");
+        assertThat(taskService.listRows(TaskFilter.NONE, PageRequest.of(0, 2, Sort.by("personaName", "description"))))
+                .extracting(TaskRow::description).containsExactly("D", "A");
+    }
+
+    @Test
+    public void search_results_stay_ranked_whatever_sort_the_grid_asks_for() {
+        var today = LocalDate.now(clock);
+        taskService.createTask("Comprar pan", today.plusDays(1), persona);
+        taskService.createTask("Pan, pan y más pan", today.plusDays(3), persona);
+        taskService.createTask("Comprar leche", today.plusDays(2), persona);
+
+        for (var sort : List.of(Sort.by("dueDate"), Sort.by("personaName").descending(), Sort.by("creationDate"))) {
+            assertThat(taskService.search("pan", PageRequest.of(0, 10, sort)))
+                    .extracting(TaskRow::description).containsExactly("Pan, pan y más pan", "Comprar pan");
+        }
+    }
+
+    @Test
+    public void done_tasks_are_moved_to_the_history_and_still_listed_on_request() {
+        taskService.createTask("Open", null, persona);
+        taskService.createTask("Done", null, persona);
+        var done = taskService.list(PageRequest.ofSize(2)).stream()
+                .filter(task -> task.getDescription().equals("Done")).findFirst().orElseThrow();
+        taskService.updateDone(Map.of(done.getId(), true));
+
+        assertThat(taskHistoryService.archive(clock.instant().plusSeconds(1), 10)).isEqualTo(1);
+        assertThat(taskHistoryService.archive(clock.instant().plusSeconds(1), 10)).isZero();
+        assertThat(taskService.listAfter(null, 10)).extracting(TaskRow::description).containsExactly("Open");
+        assertThat(taskHistoryService.listWithArchived(null, 0, 10))
+                .extracting(TaskRow::description, TaskRow::archived)
+                .containsExactlyInAnyOrder(tuple("Open", false), tuple("Done", true));
+    }
+
+    // Statement budgets: each use case runs a fixed number of statements however many rows or personas it touches, so
+    // a change that adds a statement per row (N+1) or an extra round trip fails here. Only statements that go through
+    // Hibernate are counted, not those run with JdbcClient or JdbcTemplate.
+
+    @Test
+    public void creating_a_task_stays_within_its_statement_budget() {
+        // Insert and statistics update, plus a sequence call whenever a new block of ids is needed
+        assertThat(statementsOf(() -> taskService.createTask("New", null, persona))).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void updating_a_task_stays_within_its_statement_budget() {
+        taskService.createTask("Old", null, persona);
+        var task = taskService.list(PageRequest.ofSize(1)).get(0);
+        task.setDescription("New");
+
+        // Previous state, load for the merge and update; the statistics do not change
+        assertThat(statementsOf(() -> taskService.updateTask(task))).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void deleting_a_task_stays_within_its_statement_budget() {
+        taskService.createTask("Old", null, persona);
+        var id = taskService.list(PageRequest.ofSize(1)).get(0).getId();
+
+        // Previous state, delete and statistics update
+        assertThat(statementsOf(() -> taskService.deleteTask(id))).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void toggling_many_tasks_stays_within_its_statement_budget() {
+        taskService.createTasks(IntStream.range(0, 100).mapToObj(i -> new NewTask("Task " + i, null, persona))
+                .toList());
+        var toggles = new HashMap<Long, Boolean>();
+        taskService.listAfter(null, 100).forEach(row -> toggles.put(row.id(), row.id() % 2 == 0));
+
+        // Previous states, one update per done value and one statistics update per persona
+        assertThat(statementsOf(() -> taskService.updateDone(toggles))).isLessThanOrEqualTo(4);
+        assertThat(taskService.listAfter(null, 100)).allMatch(row -> row.done() == (row.id() % 2 == 0));
+    }
+
+    @Test
+    public void listing_all_personas_stays_within_its_statement_budget() {
+        createTasksOfManyPersonas();
+
+        assertThat(statementsOf(() -> assertThat(personaService.listAll()).hasSize(11))).isEqualTo(1);
+    }
+
+    @Test
+    public void grid_fetches_stay_within_their_statement_budget() {
+        createTasksOfManyPersonas();
+        var firstPage = taskService.listAfter(null, 20);
+        var cursor = TaskCursor.of(firstPage.get(firstPage.size() - 1));
+        var filter = new TaskFilter(false, null, null, null, false);
+        var ids = firstPage.stream().map(TaskRow::id).toList();
+
+        // The fetches behind TaskListView: scrolling, jumping, filtering and sorting, and refreshing changed rows
+        assertThat(statementsOf(() -> taskService.listAfter(null, 20))).isEqualTo(1);
+        assertThat(statementsOf(() -> taskService.listAfter(cursor, 20))).isEqualTo(1);
+        assertThat(statementsOf(() -> taskService.listRows(PageRequest.of(1, 20)))).isEqualTo(1);
+        assertThat(statementsOf(() -> taskService.listRows(filter, PageRequest.of(1, 20, Sort.by("personaName")))))
+                .isEqualTo(1);
+        assertThat(statementsOf(() -> taskService.listByIds(ids))).isEqualTo(1);
+    }
+
+    private void createTasksOfManyPersonas() {
+        for (int i = 0; i < 10; i++) {
+            personaService.createPersona(20000000 + i, "Apellido" + i, "Nombre" + i, null);
+        }
+        var personas = personaService.list(PageRequest.ofSize(11));
+        for (int i = 0; i < 50; i++) {
+            taskService.createTask("Task " + i, null, personas.get(i % personas.size()));
+        }
+    }
+
+    private long statementsOf(Runnable operation) {
+        var statistics = statistics();
+        operation.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics statistics() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
 }
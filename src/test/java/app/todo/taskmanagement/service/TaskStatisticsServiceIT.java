@@ -0,0 +1,150 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.TestcontainersConfiguration;
+import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.PersonaTaskStatistics;
+import app.todo.taskmanagement.domain.TaskCounts;
+import app.todo.taskmanagement.domain.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The jobs are disabled so that a scheduled recount or rollover cannot hide a counter the services got wrong
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "app.tasks.overdue-scan-cron=-", "app.tasks.statistics-reconcile-cron=-",
+        "app.tasks.statistics-rollover-cron=-", "app.tasks.archive-cron=-" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskStatisticsServiceIT {
+
+    @Autowired
+    TaskStatisticsService statisticsService;
+
+    @Autowired
+    TaskStatisticsReconciler reconciler;
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    PersonaService personaService;
+
+    @Autowired
+    TaskHistoryService taskHistoryService;
+
+    @Autowired
+    TaskRepository taskRepository;
+
+    @Autowired
+    PersonaRepository personaRepository;
+
+    @Autowired
+    JdbcClient jdbcClient;
+
+    @Autowired
+    Clock clock;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcClient.sql("delete from task_history").update();
+        taskRepository.deleteAllInBatch();
+        personaRepository.deleteAllInBatch();
+        jdbcClient.sql("delete from task_statistics").update();
+        // Counts as of today again after a test has rolled the counters over to a later day
+        reconciler.reconcile();
+    }
+
+    @Test
+    void counters_follow_every_change_and_match_a_recount() {
+        var today = LocalDate.now(clock);
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        personaService.createPersona(23456789, "Gomez", "Ana", null);
+        var perez = personaService.search("perez", PageRequest.ofSize(1)).get(0).id();
+        var gomez = personaService.search("gomez", PageRequest.ofSize(1)).get(0).id();
+        assertCounts(Map.of(perez, TaskCounts.ZERO, gomez, TaskCounts.ZERO));
+
+        taskService.createTask("Vencida", today.minusDays(1), perez);
+        taskService.createTask("Esta semana", today.plusDays(2), perez);
+        taskService.createTask("Sin fecha", null, gomez);
+        var ids = idsByDescription();
+        assertCounts(Map.of(perez, new TaskCounts(2, 0, 1, 1), gomez, new TaskCounts(1, 0, 0, 0)));
+
+        taskService.updateDone(Map.of(ids.get("Vencida"), true));
+        assertCounts(Map.of(perez, new TaskCounts(1, 1, 0, 1), gomez, new TaskCounts(1, 0, 0, 0)));
+
+        var task = taskService.get(ids.get("Esta semana")).orElseThrow();
+        task.setDueDate(today.plusDays(30));
+        taskService.updateTask(task);
+        assertCounts(Map.of(perez, new TaskCounts(1, 1, 0, 0), gomez, new TaskCounts(1, 0, 0, 0)));
+
+        taskService.deleteTask(ids.get("Sin fecha"));
+        assertCounts(Map.of(perez, new TaskCounts(1, 1, 0, 0), gomez, TaskCounts.ZERO));
+
+        assertThat(taskHistoryService.archive(clock.instant().plusSeconds(1), 10)).isEqualTo(1);
+        assertCounts(Map.of(perez, new TaskCounts(1, 0, 0, 0), gomez, TaskCounts.ZERO));
+
+        personaService.deletePersona(perez);
+        assertCounts(Map.of(gomez, TaskCounts.ZERO));
+    }
+
+    @Test
+    void a_new_day_moves_open_tasks_between_the_date_buckets() {
+        var today = LocalDate.now(clock);
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        var perez = personaService.search("perez", PageRequest.ofSize(1)).get(0).id();
+        taskService.createTask("Vencida", today.minusDays(1), perez);
+        taskService.createTask("Esta semana", today.plusDays(2), perez);
+        taskService.createTask("Semana que viene", today.plusDays(8), perez);
+        taskService.createTask("Este mes", today.plusDays(20), perez);
+        taskService.createTask("Sin fecha", null, perez);
+        taskService.createTask("Hecha", today.plusDays(1), perez);
+        taskService.updateDone(Map.of(idsByDescription().get("Hecha"), true));
+        assertCounts(Map.of(perez, new TaskCounts(5, 1, 1, 1)));
+
+        statisticsService.rollOver(today.plusDays(3));
+        assertThat(countsByPersona()).isEqualTo(Map.of(perez, new TaskCounts(5, 1, 2, 1)));
+
+        // Changes made after the rollover are counted as of the same day
+        taskService.createTask("Pasado mañana", today.plusDays(5), perez);
+        assertThat(countsByPersona()).isEqualTo(Map.of(perez, new TaskCounts(6, 1, 2, 2)));
+
+        statisticsService.rollOver(today.plusDays(3));
+        assertThat(countsByPersona()).as("rolled over once per day")
+                .isEqualTo(Map.of(perez, new TaskCounts(6, 1, 2, 2)));
+    }
+
+    /**
+     * Checks the counters kept by the services, then recounts them from the task table and checks them again.
+     */
+    private void assertCounts(Map<Long, TaskCounts> expected) {
+        assertThat(countsByPersona()).isEqualTo(expected);
+        reconciler.reconcile();
+        assertThat(countsByPersona()).as("after reconcile").isEqualTo(expected);
+    }
+
+    private Map<Long, TaskCounts> countsByPersona() {
+        return statisticsService.listByPersona(PageRequest.ofSize(10)).stream()
+                .collect(Collectors.toMap(PersonaTaskStatistics::personaId,
+                        row -> new TaskCounts(row.open(), row.done(), row.overdue(), row.dueThisWeek())));
+    }
+
+    private Map<String, Long> idsByDescription() {
+        var ids = new HashMap<String, Long>();
+        taskService.listAfter(null, 10).forEach(row -> ids.put(row.description(), row.id()));
+        return ids;
+    }
+}
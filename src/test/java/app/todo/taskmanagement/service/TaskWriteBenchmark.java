@@ -0,0 +1,87 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.BenchmarkApplication;
+import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.Task;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating and updating tasks. The two batch benchmarks create the same number of tasks one by one and through
+ * the bulk API, and report the time per task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskWriteBenchmark {
+
+    private static final int TASKS_PER_INVOCATION = 100;
+
+    @Param({ "1000", "100000" })
+    int datasetSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TaskService taskService;
+
+    private List<Persona> personas;
+
+    private Task task;
+
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        taskService = context.getBean(TaskService.class);
+        personas = BenchmarkData.createPersonas(context.getBean(PersonaService.class), 100);
+        BenchmarkData.createTasks(taskService, personas, datasetSize);
+        task = taskService.list(PageRequest.ofSize(1)).get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void createTask() {
+        taskService.createTask("Task " + counter++, null, nextPersona());
+    }
+
+    @Benchmark
+    public void updateTask() {
+        task.setDescription("Updated " + counter++);
+        taskService.updateTask(task);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS_PER_INVOCATION)
+    public void createTasksOneByOne() {
+        for (int i = 0; i < TASKS_PER_INVOCATION; i++) {
+            taskService.createTask("Task " + counter++, null, nextPersona());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS_PER_INVOCATION)
+    public void createTasksInBulk() {
+        var newTasks = new ArrayList<NewTask>(TASKS_PER_INVOCATION);
+        for (int i = 0; i < TASKS_PER_INVOCATION; i++) {
+            newTasks.add(new NewTask("Task " + counter++, null, nextPersona()));
+        }
+        taskService.createTasks(newTasks);
+    }
+
+    private Persona nextPersona() {
+        return personas.get(counter % personas.size());
+    }
+}
@@ -0,0 +1,80 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.BenchmarkApplication;
+import app.todo.taskmanagement.domain.Persona;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Serves a burst of concurrent users, each doing a short list/create/toggle cycle through the services, on platform
+ * threads (a pool of 200, like Tomcat's default) and on virtual threads (one per user). The connection pool is fixed at
+ * 10 in both cases, so the comparison shows how many users each model gets through the same pool, not how fast a
+ * larger pool would be.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({ "platform", "virtual" })
+    String threads;
+
+    @Param({ "100", "1000" })
+    int users;
+
+    private ConfigurableApplicationContext context;
+
+    private TaskService taskService;
+
+    private TaskDoneWriteBehind taskDoneWriteBehind;
+
+    private List<Persona> personas;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("--spring.datasource.hikari.maximum-pool-size=10",
+                "--spring.datasource.hikari.minimum-idle=10");
+        taskService = context.getBean(TaskService.class);
+        taskDoneWriteBehind = context.getBean(TaskDoneWriteBehind.class);
+        personas = BenchmarkData.createPersonas(context.getBean(PersonaService.class), 100);
+        BenchmarkData.createTasks(taskService, personas, 10000);
+        executor = threads.equals("virtual") ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public void serveUsers() throws Exception {
+        var sessions = IntStream.range(0, users).mapToObj(user -> executor.submit(() -> session(user))).toList();
+        for (Future<?> session : sessions) {
+            session.get();
+        }
+    }
+
+    private void session(int user) {
+        var page = taskService.listAfter(null, 50);
+        taskService.createTask("Task of user " + user, null, personas.get(user % personas.size()));
+        var row = page.get(user % page.size());
+        taskDoneWriteBehind.setDone(row.id(), !row.done());
+        taskDoneWriteBehind.flush();
+    }
+}
@@ -0,0 +1,106 @@
+package app.todo.taskmanagement.service;
+
+import app.todo.TestcontainersConfiguration;
+import app.todo.taskmanagement.domain.PersonaRepository;
+import app.todo.taskmanagement.domain.TaskRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the service layer on many more virtual threads than there are pooled connections and checks with JFR that no
+ * virtual thread pinned its carrier while blocked, e.g. on a database call made inside a {@code synchronized} block.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "spring.threads.virtual.enabled=true", "spring.datasource.hikari.maximum-pool-size=4" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VirtualThreadPinningIT {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    PersonaService personaService;
+
+    @Autowired
+    TaskDoneWriteBehind taskDoneWriteBehind;
+
+    @Autowired
+    TaskRepository taskRepository;
+
+    @Autowired
+    PersonaRepository personaRepository;
+
+    @AfterEach
+    void cleanUp() {
+        taskRepository.deleteAllInBatch();
+        personaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void service_calls_do_not_pin_virtual_threads(@TempDir Path tempDir) throws Exception {
+        personaService.createPersona(12345678, "Perez", "Juan", 30);
+        var persona = personaService.list(PageRequest.ofSize(1)).get(0);
+
+        List<RecordedEvent> pinned;
+        try (var recording = new Recording()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var users = IntStream.range(0, 50).mapToObj(user -> executor.submit(() -> {
+                    taskService.createTask("Task " + user, null, persona);
+                    var row = taskService.listAfter(null, 10).get(0);
+                    taskDoneWriteBehind.setDone(row.id(), true);
+                    taskDoneWriteBehind.flush();
+                    var task = taskService.get(row.id()).orElseThrow();
+                    task.setDescription("Updated " + user);
+                    taskService.updateTask(task);
+                    personaService.listAll();
+                })).toList();
+                for (Future<?> user : users) {
+                    user.get();
+                }
+            }
+            recording.stop();
+            var file = tempDir.resolve("pinning.jfr");
+            recording.dump(file);
+            pinned = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(PINNED_EVENT)).toList();
+        }
+
+        assertThat(pinned).as(() -> pinned.stream().map(VirtualThreadPinningIT::stackTrace)
+                .collect(Collectors.joining("\n\n", "Pinned virtual threads:\n", ""))).isEmpty();
+    }
+
+    private static String stackTrace(RecordedEvent event) {
+        var stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return "(no stack trace)";
+        }
+        return stackTrace.getFrames().stream().limit(20)
+                .map(frame -> "  at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,109 @@
+package app.todo.taskmanagement.ui.view;
+
+import app.todo.taskmanagement.domain.TaskRow;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.checkbox.Checkbox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.data.renderer.LitRenderer;
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures what the done and action columns of the task grid cost per session: a grid is shown in a UI, the first 1000
+ * rows are fetched as if the user had scrolled through them, and the UI is serialized, which is what a session holds
+ * (and what is replicated when sessions are). Once with the columns rendered as server-side components per row, as
+ * TaskListView did before, and once with the LitRenderer templates it uses now.
+ * <p>
+ * Run it with {@code ./mvnw test -Dtest=GridRendererSessionSizeTest}; the sizes are part of the assertion's
+ * description, so a failure reports them.
+ * </p>
+ */
+class GridRendererSessionSizeTest {
+
+    private static final int ROWS = 1000;
+
+    private static final List<TaskRow> TASKS = LongStream.rangeClosed(1, ROWS)
+            .mapToObj(id -> new TaskRow(id, "Task " + id, Instant.EPOCH, null, id % 3 == 0, false, "Perez, Juan",
+                    false))
+            .toList();
+
+    @AfterEach
+    void tearDown() {
+        UI.setCurrent(null);
+    }
+
+    @Test
+    void lit_renderers_keep_the_session_smaller_than_component_renderers() throws IOException {
+        var withComponents = sessionSize(grid -> {
+            grid.addComponentColumn(row -> new Checkbox(row.done(), event -> {
+            })).setHeader("Done");
+            grid.addColumn(TaskRow::description).setHeader("Description");
+            grid.addComponentColumn(row -> new HorizontalLayout(new Button("Editar", event -> {
+            }), new Button("Eliminar", event -> {
+            }))).setHeader("Acciones");
+        });
+        var withTemplates = sessionSize(grid -> {
+            grid.addColumn(LitRenderer.<TaskRow> of("""
+                    <vaadin-checkbox .checked="${item.done}" @change="${e => toggleDone(e.target.checked)}">
+                    </vaadin-checkbox>""").withProperty("done", TaskRow::done)
+                    .withFunction("toggleDone", (row, args) -> {
+                    })).setHeader("Done");
+            grid.addColumn(TaskRow::description).setHeader("Description");
+            grid.addColumn(LitRenderer.<TaskRow> of("""
+                    <vaadin-horizontal-layout theme="spacing">
+                        <vaadin-button @click="${edit}">Editar</vaadin-button>
+                        <vaadin-button @click="${remove}">Eliminar</vaadin-button>
+                    </vaadin-horizontal-layout>""").withFunction("edit", row -> {
+                    }).withFunction("remove", row -> {
+                    })).setHeader("Acciones");
+        });
+
+        assertThat(withTemplates)
+                .as("serialized UI after fetching %d rows: %,d bytes with components, %,d bytes with templates", ROWS,
+                        withComponents, withTemplates)
+                .isLessThan(withComponents);
+    }
+
+    private static int sessionSize(GridColumns columns) throws IOException {
+        var session = mock(VaadinSession.class, withSettings().serializable());
+        when(session.hasLock()).thenReturn(true);
+        var ui = new UI();
+        ui.getInternals().setSession(session);
+        UI.setCurrent(ui);
+        var grid = new Grid<TaskRow>();
+        columns.addTo(grid);
+        grid.setItems(TASKS);
+        ui.add(grid);
+
+        // What the grid does when the browser asks for the rows while scrolling
+        grid.getDataCommunicator().setRequestedRange(0, ROWS);
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ui);
+        }
+        return bytes.size();
+    }
+
+    @FunctionalInterface
+    private interface GridColumns {
+
+        void addTo(Grid<TaskRow> grid);
+    }
+}
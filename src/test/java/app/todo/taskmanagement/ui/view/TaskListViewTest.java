@@ -0,0 +1,134 @@
+package app.todo.taskmanagement.ui.view;
+
+import app.todo.taskmanagement.domain.Persona;
+import app.todo.taskmanagement.domain.Task;
+import app.todo.taskmanagement.domain.TaskRow;
+import app.todo.taskmanagement.service.PersonaService;
+import app.todo.taskmanagement.service.TaskDoneWriteBehind;
+import app.todo.taskmanagement.service.TaskExportService;
+import app.todo.taskmanagement.service.TaskHistoryService;
+import app.todo.taskmanagement.service.TaskService;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.server.StreamResourceRegistry;
+import com.vaadin.flow.server.VaadinSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The view runs in a UI of its own, with a mocked session and mocked services.
+ */
+class TaskListViewTest {
+
+    private final TaskService taskService = mock(TaskService.class);
+
+    private final TaskDoneWriteBehind taskDoneWriteBehind = mock(TaskDoneWriteBehind.class);
+
+    private final UI ui = new UI();
+
+    @BeforeEach
+    void setUp() {
+        var session = mock(VaadinSession.class);
+        when(session.hasLock()).thenReturn(true);
+        // The export links register their resources with the session when they are attached
+        var resourceRegistry = new StreamResourceRegistry(session);
+        when(session.getResourceRegistry()).thenReturn(resourceRegistry);
+        ui.getInternals().setSession(session);
+        UI.setCurrent(ui);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UI.setCurrent(null);
+    }
+
+    @Test
+    void buffered_toggles_are_written_when_the_view_is_detached() {
+        var view = newView();
+
+        ui.add(view);
+        verify(taskDoneWriteBehind, never()).flush();
+
+        ui.remove(view);
+        verify(taskDoneWriteBehind).flush();
+    }
+
+    @Test
+    void saving_the_edit_dialog_keeps_a_toggle_made_just_before() {
+        var persona = new Persona();
+        persona.setId(1L);
+        persona.setApellido("Perez");
+        persona.setNombre("Juan");
+        var stored = new Task();
+        stored.setDescription("Comprar pan");
+        stored.setCreationDate(Instant.EPOCH);
+        stored.setDone(false);
+        stored.setPersona(persona);
+        // The write-behind buffer and the database, as far as the view can tell
+        var buffered = new HashMap<Long, Boolean>();
+        doAnswer(invocation -> {
+            buffered.put(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(taskDoneWriteBehind).setDone(anyLong(), anyBoolean());
+        doAnswer(invocation -> {
+            buffered.forEach((id, done) -> stored.setDone(done));
+            buffered.clear();
+            return null;
+        }).when(taskDoneWriteBehind).flush();
+        when(taskService.get(7L)).thenAnswer(invocation -> Optional.of(copyOf(stored)));
+        var view = newView();
+        ui.add(view);
+        var row = new TaskRow(7L, "Comprar pan", Instant.EPOCH, null, false, false, "Perez, Juan", false);
+
+        view.setDone(row, true);
+        view.editTask(row);
+        // The scheduled flush, while the dialog is open
+        taskDoneWriteBehind.flush();
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        descendants(ui).filter(Button.class::isInstance).map(Button.class::cast)
+                .filter(button -> button.getText().equals("Guardar")).findFirst().orElseThrow().click();
+
+        var saved = ArgumentCaptor.forClass(Task.class);
+        verify(taskService).updateTask(saved.capture());
+        assertThat(saved.getValue().isDone()).isTrue();
+    }
+
+    private TaskListView newView() {
+        return new TaskListView(taskService, mock(PersonaService.class), taskDoneWriteBehind,
+                mock(TaskExportService.class), mock(TaskHistoryService.class), new TaskManagementBroadcaster(),
+                new SimpleMeterRegistry(), Clock.systemUTC());
+    }
+
+    // What TaskService.get returns is a new entity every time, loaded from the database
+    private static Task copyOf(Task stored) {
+        var task = new Task();
+        task.setDescription(stored.getDescription());
+        task.setCreationDate(stored.getCreationDate());
+        task.setDone(stored.isDone());
+        task.setPersona(stored.getPersona());
+        return task;
+    }
+
+    private static Stream<Component> descendants(Component component) {
+        return Stream.concat(Stream.of(component), component.getChildren().flatMap(TaskListViewTest::descendants));
+    }
+}